@@ -0,0 +1,49 @@
+package tablist;
+
+/**
+ * Base class for a headless micro-benchmark.  A benchmark is set up once for
+ * each combination of tab count and container width, and then runs a single
+ * operation repeatedly.  All methods are called on the event dispatch thread.
+ */
+public abstract class Benchmark {
+    private final String name;
+
+    /**
+     * Constructs a benchmark with the specified name.
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the benchmark name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if the benchmark also runs with the large tab counts.
+     * This is false by default, since some benchmarks hold several copies
+     * of the tabs.
+     */
+    public boolean isLargeScale() {
+        return false;
+    }
+
+    /**
+     * Prepares the benchmark for the specified tab count and container width.
+     */
+    public abstract void setUp(int tabCount, int width);
+
+    /**
+     * Performs one operation.
+     */
+    public abstract void run();
+
+    /**
+     * Releases resources held by the benchmark.
+     */
+    public void tearDown() {
+    }
+}
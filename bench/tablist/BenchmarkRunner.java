@@ -0,0 +1,288 @@
+package tablist;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs benchmarks for each combination of tab count and container width,
+ * writes a report of nanoseconds per operation, and optionally compares the
+ * results against a baseline report.
+ *
+ * <p>The runner is configured using system properties:</p>
+ * <ul>
+ * <li><code>bench.tabs</code> - comma-separated tab counts</li>
+ * <li><code>bench.largeTabs</code> - comma-separated tab counts that are
+ * also run by large-scale benchmarks, or empty for none</li>
+ * <li><code>bench.widths</code> - comma-separated container widths</li>
+ * <li><code>bench.include</code> - regular expression to select benchmarks</li>
+ * <li><code>bench.iterations</code> - number of measured iterations</li>
+ * <li><code>bench.warmup</code> - warm-up time in milliseconds</li>
+ * <li><code>bench.time</code> - time per iteration in milliseconds</li>
+ * <li><code>bench.report</code> - report file to write</li>
+ * <li><code>bench.baseline</code> - report file to compare against</li>
+ * <li><code>bench.threshold</code> - allowed slowdown, e.g. 0.10 for 10%</li>
+ * <li><code>bench.memory</code> - true to also report bytes allocated per
+ * operation, with keys ending in ".bytes"</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+    private final int[] tabCounts = parseInts(System.getProperty("bench.tabs", "10,1000,100000"));
+    private final int[] largeTabCounts = parseInts(System.getProperty("bench.largeTabs", "1000000"));
+    private final int[] widths = parseInts(System.getProperty("bench.widths", "600,1600"));
+    private final Pattern include = Pattern.compile(System.getProperty("bench.include", ".*"));
+    private final int iterations = Integer.getInteger("bench.iterations", 5);
+    private final long warmupNanos = Integer.getInteger("bench.warmup", 300) * 1000000L;
+    private final long iterationNanos = Integer.getInteger("bench.time", 200) * 1000000L;
+    private final String reportFile = System.getProperty("bench.report", "build/bench/report.properties");
+    private final String baselineFile = System.getProperty("bench.baseline");
+    private final double threshold = Double.parseDouble(System.getProperty("bench.threshold", "0.10"));
+    private final boolean memory = Boolean.getBoolean("bench.memory");
+
+    private final Map<String, Double> results = new LinkedHashMap<String, Double>();
+
+    private double bytesPerOp;
+
+    /**
+     * Runs the specified benchmarks, and returns true if no regression was
+     * found against the baseline.
+     */
+    public boolean run(List<Benchmark> benchmarks) throws Exception {
+        for (Benchmark benchmark : benchmarks) {
+            if (!include.matcher(benchmark.getName()).matches()) {
+                continue;
+            }
+            int[] counts = tabCounts;
+            if (benchmark.isLargeScale()) {
+                counts = Arrays.copyOf(tabCounts, tabCounts.length + largeTabCounts.length);
+                System.arraycopy(largeTabCounts, 0, counts, tabCounts.length, largeTabCounts.length);
+            }
+            for (int tabCount : counts) {
+                for (int width : widths) {
+                    String key = benchmark.getName() + "." + tabCount + "." + width;
+                    addResult(key, measure(benchmark, tabCount, width));
+                    if (memory) {
+                        addResult(key + ".bytes", bytesPerOp, "B/op");
+                    }
+                }
+            }
+        }
+
+        return finish();
+    }
+
+    /**
+     * Returns the tab counts to benchmark.
+     */
+    public int[] getTabCounts() {
+        return tabCounts;
+    }
+
+    /**
+     * Returns the container widths to benchmark.
+     */
+    public int[] getWidths() {
+        return widths;
+    }
+
+    /**
+     * Returns the number of measured iterations.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Records a result in nanoseconds per operation for the specified key.
+     */
+    public void addResult(String key, double nsPerOp) {
+        addResult(key, nsPerOp, "ns/op");
+    }
+
+    /**
+     * Records a result in the specified unit for the specified key.  Larger
+     * values are regressions.
+     */
+    public void addResult(String key, double value, String unit) {
+        results.put(key, value);
+        System.out.println(String.format(Locale.US, "%-50s %14.1f %s", key, value, unit));
+    }
+
+    /**
+     * Returns the warm-up time in nanoseconds.
+     */
+    public long getWarmupNanos() {
+        return warmupNanos;
+    }
+
+    /**
+     * Writes the recorded results to the report file, and returns true if no
+     * regression was found against the baseline.
+     */
+    public boolean finish() throws IOException {
+        writeReport();
+        return (baselineFile == null) || compareBaseline();
+    }
+
+    /**
+     * Measures the specified benchmark, and returns the median time per
+     * operation in nanoseconds.  The median bytes allocated per operation
+     * are saved if memory is reported.
+     */
+    private double measure(final Benchmark benchmark, final int tabCount, final int width) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                benchmark.setUp(tabCount, width);
+            }
+        });
+
+        try {
+            runFor(benchmark, warmupNanos);
+            double[] samples = new double[iterations];
+            double[] byteSamples = new double[iterations];
+            for (int i = 0; i < iterations; i++) {
+                double[] result = runFor(benchmark, iterationNanos);
+                samples[i] = result[0];
+                byteSamples[i] = result[1];
+            }
+            Arrays.sort(samples);
+            Arrays.sort(byteSamples);
+            bytesPerOp = byteSamples[byteSamples.length / 2];
+            return samples[samples.length / 2];
+
+        } finally {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    benchmark.tearDown();
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the benchmark on the event dispatch thread for at least the
+     * specified time, and returns the average time and bytes allocated per
+     * operation.  Bytes are zero if memory is not reported.
+     */
+    private double[] runFor(final Benchmark benchmark, final long nanos) throws Exception {
+        final double[] result = new double[2];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                long ops = 0;
+                long startBytes = memory ? getAllocatedBytes() : 0;
+                long start = System.nanoTime();
+                long elapsed;
+                do {
+                    for (int i = 0; i < 16; i++) {
+                        benchmark.run();
+                    }
+                    ops += 16;
+                    elapsed = System.nanoTime() - start;
+                } while (elapsed < nanos);
+                result[0] = (double) elapsed / ops;
+                if (memory) {
+                    result[1] = (double) (getAllocatedBytes() - startBytes) / ops;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the total bytes allocated by the current thread.  This uses an
+     * extension of the HotSpot thread bean.
+     */
+    private static long getAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = 
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Writes the results to the report file.
+     */
+    private void writeReport() throws IOException {
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            writer.println("# Benchmark results in nanoseconds per operation, or bytes for keys ending in .bytes");
+            writer.println("# key = name.tabCount.width");
+            for (Map.Entry<String, Double> entry : results.entrySet()) {
+                writer.println(String.format(Locale.US, "%s=%.1f", entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            writer.close();
+        }
+        System.out.println("Report written to " + file.getPath());
+    }
+
+    /**
+     * Compares the results against the baseline report, and returns true if
+     * no result is slower than the baseline by more than the threshold.
+     */
+    private boolean compareBaseline() throws IOException {
+        Properties baseline = new Properties();
+        InputStream in = new FileInputStream(baselineFile);
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+
+        List<String> regressions = new ArrayList<String>();
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            String value = baseline.getProperty(entry.getKey());
+            if (value == null) {
+                continue;
+            }
+            double ratio = entry.getValue() / Double.parseDouble(value);
+            String line = String.format(Locale.US, "%-50s %+7.1f%%", entry.getKey(), (ratio - 1.0) * 100.0);
+            if (ratio > 1.0 + threshold) {
+                regressions.add(line);
+            }
+            System.out.println(line);
+        }
+
+        for (String regression : regressions) {
+            System.out.println("REGRESSION: " + regression);
+        }
+        return regressions.isEmpty();
+    }
+
+    /**
+     * Parses a comma-separated list of integers.
+     */
+    private static int[] parseInts(String value) {
+        if (value.trim().length() == 0) {
+            return new int[0];
+        }
+        String[] tokens = value.split(",");
+        int[] values = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            values[i] = Integer.parseInt(tokens[i].trim());
+        }
+        return values;
+    }
+}
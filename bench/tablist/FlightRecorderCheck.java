@@ -0,0 +1,132 @@
+package tablist;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.swing.SwingUtilities;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Headless check that the tab list events appear in a flight recording.
+ * Run using the Ant "jfr-check" target.
+ *
+ * <p>A recording is started with the settings in <code>tablist.jfc</code>,
+ * or the file named by the <code>jfr.settings</code> property.  Tabs are
+ * then added, selected and removed on an animated panel driven by a virtual
+ * clock, and frames are sent by a FrameTimingSource.  The check fails unless
+ * every event type is found in the recording.</p>
+ */
+public class FlightRecorderCheck {
+    private static final String[] EVENT_NAMES = {
+        "tablist.TabAdded",
+        "tablist.TabRemoved",
+        "tablist.TabSelected",
+        "tablist.LayoutTabs",
+        "tablist.EffectsRegistered",
+        "tablist.EffectCreated",
+        "tablist.TransitionStart",
+        "tablist.TransitionEnd",
+        "tablist.Frame",
+    };
+
+    /**
+     * Main check method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        Path settings = Paths.get(System.getProperty("jfr.settings", "tablist.jfc"));
+        File file = File.createTempFile("tablist", ".jfr");
+        file.deleteOnExit();
+
+        Recording recording = new Recording(Configuration.create(settings));
+        recording.start();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                exercisePanel();
+                exerciseTimingSource();
+            }
+        });
+        recording.stop();
+        recording.dump(file.toPath());
+        recording.close();
+
+        Map<String, Integer> counts = new TreeMap<String, Integer>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            String name = event.getEventType().getName();
+            if (name.startsWith("tablist.")) {
+                Integer count = counts.get(name);
+                counts.put(name, (count != null) ? count + 1 : 1);
+            }
+        }
+
+        boolean passed = true;
+        for (String name : EVENT_NAMES) {
+            Integer count = counts.get(name);
+            System.out.println(name + " = " + ((count != null) ? count : 0));
+            if (count == null) {
+                System.out.println("FAILED: no " + name + " events recorded");
+                passed = false;
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Adds, selects and removes tabs on an animated panel, running each
+     * transition to its end in virtual time.
+     */
+    private static void exercisePanel() {
+        AnimatedTabPanel panel = new AnimatedTabPanel();
+        panel.getQualityGovernor().setEnabled(false);
+        panel.setAnimated(false);
+        TabBenchmarks.createPanel(panel, 20, 800);
+        panel.setAnimated(true);
+        VirtualClock clock = new VirtualClock();
+        panel.setVirtualClock(clock);
+
+        TabModel model = panel.getModel();
+        panel.addTab("Added");
+        finish(clock);
+        panel.selectEntry(model.get(model.size() - 1));
+        finish(clock);
+        panel.selectEntry(model.get(0));
+        clock.advance(10);
+        panel.selectEntry(model.get(1));
+        finish(clock);
+        panel.removeEntry(model.get(model.size() - 1));
+        finish(clock);
+    }
+
+    /**
+     * Sends frames from a FrameTimingSource, which are timed by the source
+     * rather than the virtual clock.
+     */
+    private static void exerciseTimingSource() {
+        FrameTimingSource source = new FrameTimingSource(new AnimationPulse(), new TransitionMetrics(), null);
+        source.start();
+        for (int i = 0; i < 3; i++) {
+            source.pulse(System.nanoTime(), 16);
+        }
+        source.stop();
+    }
+
+    /**
+     * Advances the clock until the running transition ends.
+     */
+    private static void finish(VirtualClock clock) {
+        while (clock.isRunning()) {
+            clock.advance(20);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package tablist;
+
+import java.awt.event.ActionEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless heap footprint check for the tab list.  Run using the Ant
+ * "bench-footprint" target.
+ *
+ * <p>For each tab count, the retained heap is measured after a full
+ * garbage collection for:</p>
+ * <ul>
+ * <li><code>panel</code> - a panel holding the tabs in its model, with
+ * components bound to the visible tabs only</li>
+ * <li><code>components</code> - the same model with a Tab component bound
+ * to every entry, as the panel held before the model was added</li>
+ * </ul>
+ *
+ * <p>Results are reported in bytes per tab, and the median of
+ * <code>bench.iterations</code> runs is used.  The components once shared
+ * the actions of the panel, so their cost is slightly understated.  The
+ * check fails unless the panel retains less than the components.</p>
+ */
+public class FootprintBenchmark {
+
+    /**
+     * Main benchmark method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final BenchmarkRunner runner = new BenchmarkRunner();
+        final boolean[] passed = { true };
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                int width = runner.getWidths()[0];
+                for (int tabCount : runner.getTabCounts()) {
+                    String key = tabCount + "." + width;
+                    double panel = measure(runner, "panel." + key, tabCount, width, false);
+                    double components = measure(runner, "components." + key, tabCount, width, true);
+                    if (panel >= components) {
+                        System.out.println("FAILED " + key + ": panel retained " + panel +
+                                " bytes per tab, components retained " + components);
+                        passed[0] = false;
+                    }
+                }
+            }
+        });
+
+        boolean finished = runner.finish();
+        System.exit((passed[0] && finished) ? 0 : 1);
+    }
+
+    /**
+     * Measures the retained heap of a panel with the specified tab count,
+     * with or without a component for every tab, records the median, and
+     * returns it in bytes per tab.
+     */
+    private static double measure(BenchmarkRunner runner, String key, int tabCount, int width,
+            boolean components) {
+        Object[] holder = new Object[1];
+        double[] samples = new double[runner.getIterations()];
+        for (int i = 0; i < samples.length; i++) {
+            long before = getRetainedBytes();
+            holder[0] = create(tabCount, width, components);
+            long after = getRetainedBytes();
+            holder[0] = null;
+            samples[i] = (double) (after - before) / Math.max(tabCount, 1);
+        }
+        Arrays.sort(samples);
+        double median = samples[samples.length / 2];
+        runner.addResult(key, median, "B/tab");
+        return median;
+    }
+
+    /**
+     * Creates a panel with the specified number of tabs, and also binds a
+     * Tab component to every entry if specified.  Returns an object that
+     * retains everything created.
+     */
+    private static Object create(int tabCount, int width, boolean components) {
+        AnimatedTabPanel panel = TabBenchmarks.createPanel(tabCount, width);
+        if (!components) {
+            return panel;
+        }
+
+        Action selectAction = new NoAction();
+        Action closeAction = new NoAction();
+        List<Object> retained = new ArrayList<Object>(tabCount + 1);
+        retained.add(panel);
+        for (TabModel.Entry entry : panel.getModel().getEntries()) {
+            Tab tab = new Tab(selectAction, closeAction);
+            tab.bind(entry);
+            retained.add(tab);
+        }
+        return retained;
+    }
+
+    /**
+     * Returns the heap in use after a full garbage collection.
+     */
+    private static long getRetainedBytes() {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, memoryBean.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    /**
+     * Action that does nothing.
+     */
+    private static class NoAction extends AbstractAction {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+        }
+    }
+}
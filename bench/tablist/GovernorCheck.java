@@ -0,0 +1,169 @@
+package tablist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Headless check of the quality steps taken by QualityGovernor.  Run using
+ * the Ant "governor-check" target.
+ *
+ * <p>The governor is driven by a simulated clock with its default
+ * thresholds.  Slow frames must lower the quality one step at a time from
+ * FULL to INSTANT, no faster than the hold time.  Fast frames must then
+ * raise it one step at a time back to FULL, no faster than the recovery
+ * delay.  Operations arriving faster than the operation limit must also
+ * lower the quality, and a disabled governor must always return FULL.  The
+ * check fails if any step differs.</p>
+ */
+public class GovernorCheck {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int SLOW_INTERVAL = 50;
+    private static final int FAST_INTERVAL = 16;
+    private static final int HOLD_TIME = 500;
+    private static final int RECOVERY_DELAY = 2000;
+
+    private static boolean passed = true;
+
+    /**
+     * Main check method.
+     */
+    public static void main(String[] args) {
+        checkFrames();
+        checkOperations();
+        checkDisabled();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Sends slow frames until the quality is INSTANT, and then fast frames
+     * until it is FULL again.
+     */
+    private static void checkFrames() {
+        QualityGovernor governor = new QualityGovernor();
+        List<Step> steps = new ArrayList<Step>();
+        long now = 0;
+        QualityGovernor.Quality quality = governor.getQuality(now);
+
+        // Lower the quality with slow frames.  Frames continue for a while
+        // after INSTANT is reached, which must not change it.
+        for (int i = 0; i < 100; i++) {
+            now += SLOW_INTERVAL * NANOS_PER_MILLI;
+            governor.recordFrame(SLOW_INTERVAL * NANOS_PER_MILLI, now);
+            quality = record(governor, now, quality, steps);
+        }
+        check("lowered", steps, QualityGovernor.Quality.FADE, QualityGovernor.Quality.SHORT,
+                QualityGovernor.Quality.INSTANT);
+        checkSpacing("lowered", steps, HOLD_TIME);
+
+        // Raise the quality with fast frames.  The first step is timed from
+        // the last change.
+        Step lowest = steps.isEmpty() ? new Step(quality, 0) : steps.get(steps.size() - 1);
+        steps.clear();
+        for (int i = 0; i < 1000; i++) {
+            now += FAST_INTERVAL * NANOS_PER_MILLI;
+            governor.recordFrame(FAST_INTERVAL * NANOS_PER_MILLI, now);
+            quality = record(governor, now, quality, steps);
+        }
+        check("raised", steps, QualityGovernor.Quality.SHORT, QualityGovernor.Quality.FADE,
+                QualityGovernor.Quality.FULL);
+        steps.add(0, lowest);
+        checkSpacing("raised", steps, RECOVERY_DELAY);
+    }
+
+    /**
+     * Records operations ten times faster than the default limit, and
+     * checks that the quality is lowered.
+     */
+    private static void checkOperations() {
+        QualityGovernor governor = new QualityGovernor();
+        List<Step> steps = new ArrayList<Step>();
+        long now = 0;
+        QualityGovernor.Quality quality = governor.getQuality(now);
+        for (int i = 0; i < 20; i++) {
+            now += 16 * NANOS_PER_MILLI;
+            governor.recordOperation(now);
+            quality = record(governor, now, quality, steps);
+        }
+        check("operations", steps, QualityGovernor.Quality.FADE);
+    }
+
+    /**
+     * Sends slow frames to a disabled governor, and checks that the quality
+     * remains FULL.
+     */
+    private static void checkDisabled() {
+        QualityGovernor governor = new QualityGovernor();
+        governor.setEnabled(false);
+        List<Step> steps = new ArrayList<Step>();
+        long now = 0;
+        QualityGovernor.Quality quality = governor.getQuality(now);
+        for (int i = 0; i < 100; i++) {
+            now += SLOW_INTERVAL * NANOS_PER_MILLI;
+            governor.recordFrame(SLOW_INTERVAL * NANOS_PER_MILLI, now);
+            governor.recordOperation(now);
+            quality = record(governor, now, quality, steps);
+        }
+        check("disabled", steps);
+    }
+
+    /**
+     * Adds a step if the quality at the specified time differs from the
+     * previous quality, and returns the current quality.
+     */
+    private static QualityGovernor.Quality record(QualityGovernor governor, long now,
+            QualityGovernor.Quality previous, List<Step> steps) {
+        QualityGovernor.Quality quality = governor.getQuality(now);
+        if (quality != previous) {
+            steps.add(new Step(quality, now));
+        }
+        return quality;
+    }
+
+    /**
+     * Checks that the steps reached the specified qualities in order.
+     */
+    private static void check(String name, List<Step> steps, QualityGovernor.Quality... expected) {
+        List<QualityGovernor.Quality> qualities = new ArrayList<QualityGovernor.Quality>();
+        for (Step step : steps) {
+            qualities.add(step.quality);
+        }
+        System.out.println(name + ": " + steps);
+        if (!qualities.equals(Arrays.asList(expected))) {
+            System.out.println("FAILED " + name + ": expected " + Arrays.toString(expected));
+            passed = false;
+        }
+    }
+
+    /**
+     * Checks that consecutive steps are at least the specified time apart.
+     */
+    private static void checkSpacing(String name, List<Step> steps, int millis) {
+        for (int i = 1; i < steps.size(); i++) {
+            long elapsed = steps.get(i).time - steps.get(i - 1).time;
+            if (elapsed < millis * NANOS_PER_MILLI) {
+                System.out.println("FAILED " + name + ": " + steps.get(i) + " only " +
+                        elapsed / NANOS_PER_MILLI + " ms after " + steps.get(i - 1));
+                passed = false;
+            }
+        }
+    }
+
+    /**
+     * Quality reached at a simulated time.
+     */
+    private static class Step {
+        private final QualityGovernor.Quality quality;
+        private final long time;
+
+        public Step(QualityGovernor.Quality quality, long time) {
+            this.quality = quality;
+            this.time = time;
+        }
+
+        @Override
+        public String toString() {
+            return quality + "@" + time / NANOS_PER_MILLI + "ms";
+        }
+    }
+}
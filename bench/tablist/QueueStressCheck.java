@@ -0,0 +1,207 @@
+package tablist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless stress check of the command queue of AnimatedTabPanel.  Run
+ * using the Ant "queue-check" target.
+ *
+ * <p>A panel is created with a slice of initial tabs for each thread.
+ * <code>bench.threads</code> threads are then started together, and each
+ * posts <code>bench.commands</code> adds of uniquely named tabs, interleaved
+ * with removes, renames and selections of its own initial tabs.  Every
+ * remove is posted twice, the second time by another thread, and must have
+ * no effect.  Tabs are laid out without animation.</p>
+ *
+ * <p>When the queue has drained, the check fails unless the model size is
+ * as expected, every added and renamed tab appears exactly once, no removed
+ * tab remains, and <code>indexOf()</code> agrees with the position of every
+ * entry.</p>
+ */
+public class QueueStressCheck {
+    private static final int TIMEOUT_SECONDS = 60;
+
+    /**
+     * Main check method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final int threadCount = Integer.getInteger("bench.threads", 8);
+        final int commandCount = Integer.getInteger("bench.commands", 2000);
+        final int sliceSize = Math.max(commandCount / 4, 1);
+
+        // Create panel with initial tabs.  The first half of each slice is
+        // removed, and the second half is renamed and selected.
+        final AnimatedTabPanel panel = new AnimatedTabPanel();
+        final List<TabModel.Entry> initialEntries = new ArrayList<TabModel.Entry>();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                panel.setAnimated(false);
+                TabBenchmarks.createPanel(panel, threadCount * sliceSize, 800);
+                initialEntries.addAll(panel.getModel().getEntries());
+            }
+        });
+
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        List<Thread> threads = new ArrayList<Thread>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIdx = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    List<TabModel.Entry> slice = getSlice(initialEntries, threadIdx, sliceSize);
+                    List<TabModel.Entry> otherSlice = getSlice(initialEntries, (threadIdx + 1) % threadCount,
+                            sliceSize);
+                    int half = sliceSize / 2;
+                    try {
+                        barrier.await();
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                    for (int i = 0; i < commandCount; i++) {
+                        panel.postAddTab(getAddedName(threadIdx, i));
+                        int sliceIdx = i / 2;
+                        if (sliceIdx < half && i % 2 == 0) {
+                            panel.postRemoveEntry(slice.get(sliceIdx));
+                        } else if (sliceIdx < half) {
+                            panel.postRemoveEntry(otherSlice.get(sliceIdx));
+                        } else if (sliceIdx < sliceSize && i % 2 == 0) {
+                            panel.postRenameEntry(slice.get(sliceIdx), getRenamedName(threadIdx, sliceIdx));
+                        } else if (sliceIdx < sliceSize) {
+                            panel.postSelectEntry(slice.get(sliceIdx));
+                        }
+                    }
+                }
+            }, "Queue stress " + t);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Commands run in order, so this runs after all commands posted.
+        final CountDownLatch drained = new CountDownLatch(1);
+        panel.postCommand(new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+        if (!drained.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.out.println("FAILED: queue not drained after " + TIMEOUT_SECONDS + " s");
+            System.exit(1);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        final boolean[] passed = { true };
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                passed[0] = check(panel.getModel(), initialEntries, threadCount, commandCount, sliceSize);
+            }
+        });
+        System.out.println(threadCount + " threads posted " + commandCount + " adds each in " +
+                elapsed / 1000000L + " ms");
+        System.exit(passed[0] ? 0 : 1);
+    }
+
+    /**
+     * Checks the model after all commands have been applied, and returns
+     * true if it is consistent.
+     */
+    private static boolean check(TabModel model, List<TabModel.Entry> initialEntries, int threadCount,
+            int commandCount, int sliceSize) {
+        boolean passed = true;
+        int half = sliceSize / 2;
+        int expectedSize = threadCount * (commandCount + sliceSize - half);
+        System.out.println("size = " + model.size() + ", expected " + expectedSize);
+        if (model.size() != expectedSize) {
+            System.out.println("FAILED: model size " + model.size() + " is not " + expectedSize);
+            passed = false;
+        }
+
+        // Check for duplicate entries and titles, and the index of each.
+        Map<TabModel.Entry, Boolean> entries = new IdentityHashMap<TabModel.Entry, Boolean>();
+        Set<String> titles = new HashSet<String>();
+        int index = 0;
+        for (TabModel.Entry entry : model.getEntries()) {
+            if (entries.put(entry, Boolean.TRUE) != null) {
+                System.out.println("FAILED: duplicate entry " + entry);
+                passed = false;
+            }
+            if (!titles.add(entry.getTitle())) {
+                System.out.println("FAILED: duplicate title " + entry.getTitle());
+                passed = false;
+            }
+            if (model.indexOf(entry) != index || model.get(index) != entry) {
+                System.out.println("FAILED: " + entry + " at " + index + " has index " + model.indexOf(entry));
+                passed = false;
+            }
+            index++;
+        }
+
+        // Check added, renamed and removed tabs.
+        List<String> missing = new ArrayList<String>();
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < commandCount; i++) {
+                if (!titles.contains(getAddedName(t, i))) {
+                    missing.add(getAddedName(t, i));
+                }
+            }
+            List<TabModel.Entry> slice = getSlice(initialEntries, t, sliceSize);
+            for (int i = 0; i < sliceSize; i++) {
+                TabModel.Entry entry = slice.get(i);
+                if (i < half && model.indexOf(entry) >= 0) {
+                    System.out.println("FAILED: removed " + entry + " is at " + model.indexOf(entry));
+                    passed = false;
+                } else if (i >= half && !getRenamedName(t, i).equals(entry.getTitle())) {
+                    missing.add(getRenamedName(t, i));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            System.out.println("FAILED: " + missing.size() + " tabs missing, first " + missing.get(0));
+            passed = false;
+        }
+        return passed;
+    }
+
+    /**
+     * Returns the initial entries posted by the specified thread.
+     */
+    private static List<TabModel.Entry> getSlice(List<TabModel.Entry> entries, int threadIdx, int sliceSize) {
+        return Collections.unmodifiableList(entries.subList(threadIdx * sliceSize, (threadIdx + 1) * sliceSize));
+    }
+
+    /**
+     * Returns the name of a tab added by the specified thread.
+     */
+    private static String getAddedName(int threadIdx, int i) {
+        return "Added " + threadIdx + "." + i;
+    }
+
+    /**
+     * Returns the new name of an initial tab renamed by the specified
+     * thread.
+     */
+    private static String getRenamedName(int threadIdx, int sliceIdx) {
+        return "Renamed " + threadIdx + "." + sliceIdx;
+    }
+}
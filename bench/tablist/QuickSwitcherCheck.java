@@ -0,0 +1,126 @@
+package tablist;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless check that the quick switcher searches the current tabs.  Run
+ * using the Ant "switcher-check" target.
+ *
+ * <p>The switcher of a panel is searched, and then all tabs are removed and
+ * new tabs are added, and the panel is restored from a session file.  After
+ * each change, the switcher must find the current tabs and none of the old
+ * ones.  Finally, a result whose tab has since been removed is chosen, which
+ * must not change the selection or the recently used tabs.  The popup is
+ * never shown, so no display is needed.</p>
+ */
+public class QuickSwitcherCheck {
+    private static boolean passed = true;
+
+    /**
+     * Main check method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final File file = File.createTempFile("tablist", ".session");
+        file.deleteOnExit();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    check(file);
+                } catch (IOException ex) {
+                    System.out.println("FAILED: " + ex);
+                    passed = false;
+                }
+            }
+        });
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs the checks, using the specified file to save a session.
+     */
+    private static void check(File file) throws IOException {
+        AnimatedTabPanel panel = createPanel("Alpha", 5);
+        checkResults(panel, "initial", "Alpha", 5);
+
+        // Remove all tabs and add new ones.
+        panel.removeAllTabs();
+        addTabs(panel, "Beta", 3);
+        checkResults(panel, "cleared", "Alpha", 0);
+        checkResults(panel, "cleared", "Beta", 3);
+
+        // Restore a session with other tabs.
+        TabSession.save(createPanel("Gamma", 4), file);
+        TabSession.restore(panel, file);
+        checkResults(panel, "restored", "Beta", 0);
+        checkResults(panel, "restored", "Gamma", 4);
+
+        // Choose a result after its tab is removed.
+        TabModel model = panel.getModel();
+        QuickSwitcher switcher = panel.getQuickSwitcher();
+        switcher.setQuery("Gamma");
+        TabModel.Entry removed = switcher.getResults().get(0);
+        if (removed == model.getSelected()) {
+            panel.selectEntry(switcher.getResults().get(1));
+        }
+        TabModel.Entry selected = model.getSelected();
+        panel.removeEntry(removed);
+        switcher.chooseIndex(0);
+        System.out.println("chose removed " + removed + ", selected " + model.getSelected());
+        if (model.getSelected() != selected || model.getMostRecent() == removed) {
+            System.out.println("FAILED: removed tab " + removed + " was selected");
+            passed = false;
+        }
+    }
+
+    /**
+     * Creates a non-animated panel with the specified number of tabs.
+     */
+    private static AnimatedTabPanel createPanel(String prefix, int count) {
+        AnimatedTabPanel panel = new AnimatedTabPanel();
+        panel.setAnimated(false);
+        panel.getComponent().setSize(800, 36);
+        addTabs(panel, prefix, count);
+        return panel;
+    }
+
+    /**
+     * Adds the specified number of tabs with names starting with the
+     * specified prefix.
+     */
+    private static void addTabs(AnimatedTabPanel panel, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            panel.addTab(prefix + " " + i);
+        }
+    }
+
+    /**
+     * Searches for the specified query using the quick switcher of the
+     * panel, and checks the number of results.
+     */
+    private static void checkResults(AnimatedTabPanel panel, String name, String query, int expected) {
+        QuickSwitcher switcher = panel.getQuickSwitcher();
+        switcher.setQuery(query);
+        List<TabModel.Entry> results = switcher.getResults();
+        System.out.println(name + " \"" + query + "\": " + results);
+        if (results.size() != expected) {
+            System.out.println("FAILED " + name + ": found " + results.size() + " tabs for \"" +
+                    query + "\", expected " + expected);
+            passed = false;
+        }
+        for (TabModel.Entry entry : results) {
+            if (panel.getModel().indexOf(entry) < 0) {
+                System.out.println("FAILED " + name + ": found removed tab " + entry);
+                passed = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package tablist;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless measurement of the area repainted on each frame of a tab
+ * transition.  Run using the Ant "bench-repaint" target.
+ *
+ * <p>The container transition is run without an animator: it is begun,
+ * each frame is sent to it, and the region it repaints is recorded.  For
+ * each scenario, the average number of pixels per frame is reported for
+ * repainting the entire transition layer, which covers the window, as the
+ * Animated Transitions library does, and for repainting only the region
+ * that changes.  The first frame repaints the entire container.
+ * The tab counts and container widths are set using the <code>bench.tabs</code>
+ * and <code>bench.widths</code> properties.</p>
+ */
+public class RepaintBenchmark {
+
+    private static final int FRAME_INTERVAL = 20;
+    private static final int TAB_HEIGHT = 36;
+    private static final int CONTENT_HEIGHT = 120;
+
+    /**
+     * Main benchmark method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final BenchmarkRunner runner = new BenchmarkRunner();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println(String.format(Locale.US, "%-36s %14s %14s %10s",
+                        "scenario", "layer px/frame", "dirty px/frame", "reduction"));
+                for (int tabCount : runner.getTabCounts()) {
+                    for (int width : runner.getWidths()) {
+                        for (Scenario scenario : Scenario.values()) {
+                            measure(scenario, tabCount, width);
+                        }
+                    }
+                }
+            }
+        });
+        System.exit(0);
+    }
+
+    /**
+     * Tab operation that starts a transition.
+     */
+    private static enum Scenario {
+        ADD_TAB("addTab"),
+        REMOVE_TAB("removeTab"),
+        SELECT_NEXT("selectNext"),
+        SELECT_VISIBLE("selectVisible");
+
+        private final String name;
+
+        private Scenario(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Measures the specified scenario, and prints the results.
+     */
+    private static void measure(Scenario scenario, int tabCount, int width) {
+        SimulatedPanel panel = new SimulatedPanel(width);
+        List<String> names = new ArrayList<String>(tabCount);
+        for (int i = 0; i < tabCount; i++) {
+            names.add("Tab " + i);
+        }
+        panel.addTabs(names);
+        TabBenchmarks.layoutTree(panel.window);
+
+        TabModel model = panel.getModel();
+        int startIdx = panel.getVisibleStart();
+        int visibleCount = 0;
+        for (Component child : panel.getComponents()) {
+            if (child instanceof Tab) {
+                visibleCount++;
+            }
+        }
+
+        panel.simulate = true;
+        switch (scenario) {
+        case ADD_TAB:
+            panel.addTab("New Tab");
+            break;
+        case REMOVE_TAB:
+            panel.removeEntry(model.get(Math.min(startIdx + 1, model.size() - 1)));
+            break;
+        case SELECT_NEXT:
+            panel.selectEntry(model.get(Math.min(startIdx + visibleCount, model.size() - 1)));
+            break;
+        default:
+            panel.selectEntry(model.get(Math.min(startIdx + 1, model.size() - 1)));
+            break;
+        }
+
+        double layerPixels = (double) panel.layerPixels / panel.frames;
+        double dirtyPixels = (double) panel.dirtyPixels / panel.frames;
+        System.out.println(String.format(Locale.US, "%-36s %14.0f %14.0f %9.1f%%",
+                scenario.name + "." + tabCount + "." + width, layerPixels, dirtyPixels,
+                (1.0 - dirtyPixels / layerPixels) * 100.0));
+    }
+
+    /**
+     * Panel that simulates transitions without a display.
+     */
+    private static class SimulatedPanel extends AnimatedTabPanel {
+        private final JPanel window;
+
+        private boolean simulate;
+        private long layerPixels;
+        private long dirtyPixels;
+        private int frames;
+
+        public SimulatedPanel(int width) {
+            getQualityGovernor().setEnabled(false);
+
+            // Create content like the demo window.
+            JPanel topPanel = new JPanel(new BorderLayout());
+            JButton addButton = new JButton("Add Tab");
+            addButton.setPreferredSize(new Dimension(120, 23));
+            topPanel.add(addButton, BorderLayout.WEST);
+            topPanel.add(getComponent(), BorderLayout.CENTER);
+
+            window = new JPanel(new BorderLayout());
+            window.add(topPanel, BorderLayout.NORTH);
+            window.add(new JPanel(), BorderLayout.CENTER);
+            window.setSize(width, TAB_HEIGHT + CONTENT_HEIGHT);
+            TabBenchmarks.layoutTree(window);
+        }
+
+        @Override
+        boolean canAnimate() {
+            return simulate;
+        }
+
+        @Override
+        void startTransition(int duration) {
+            ContainerTransition transition = getTransition();
+            long windowPixels = (long) window.getWidth() * window.getHeight();
+            int frameCount = Math.max(duration / FRAME_INTERVAL, 1);
+            for (int i = 0; i <= frameCount; i++) {
+                if (i == 0) {
+                    transition.begin();
+                } else {
+                    transition.timingEvent((float) i / frameCount);
+                }
+                Rectangle region = transition.getDirtyRegion();
+                layerPixels += windowPixels;
+                dirtyPixels += region.isEmpty() ? 0 : (long) region.width * region.height;
+                frames++;
+            }
+            transition.end();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package tablist;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless check of retargeted transitions.  Run using the Ant
+ * "bench-retarget" target.
+ *
+ * <p>Each run fires 20 tab selections within a single transition, in
+ * virtual time, and paints every frame until the transition ends.  This is
+ * done once with retargeting, and once with a new transition started for
+ * every selection.  The median over <code>bench.iterations</code> runs is
+ * reported for:</p>
+ * <ul>
+ * <li><code>transitions</code> - transitions begun</li>
+ * <li><code>setups</code> - calls to <code>setupNextScreen()</code></li>
+ * <li><code>captures</code> - components painted into back buffers</li>
+ * <li><code>cpu</code> - CPU nanoseconds of the whole run</li>
+ * </ul>
+ *
+ * <p>The check fails unless retargeting begins a single transition, and
+ * captures fewer components than restarting.</p>
+ */
+public class RetargetBenchmark {
+    private static final int SELECTIONS = 20;
+    private static final int SELECTION_INTERVAL = 10;
+    private static final int FRAME_INTERVAL = 20;
+
+    /**
+     * Main benchmark method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final BenchmarkRunner runner = new BenchmarkRunner();
+        final boolean[] passed = { true };
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int tabCount : runner.getTabCounts()) {
+                    for (int width : runner.getWidths()) {
+                        String key = tabCount + "." + width;
+                        double[] retarget = measure(runner, "retarget." + key, tabCount, width, true);
+                        double[] restart = measure(runner, "restart." + key, tabCount, width, false);
+                        if (retarget[0] != 1 || retarget[2] >= restart[2]) {
+                            System.out.println("FAILED " + key + ": retarget began " + retarget[0] +
+                                    " transitions and captured " + retarget[2] + " components, restart captured " +
+                                    restart[2]);
+                            passed[0] = false;
+                        }
+                    }
+                }
+            }
+        });
+
+        boolean finished = runner.finish();
+        System.exit((passed[0] && finished) ? 0 : 1);
+    }
+
+    /**
+     * Measures the selection burst with or without retargeting, records the
+     * results, and returns the medians of the transitions, setups, captures
+     * and CPU time.
+     */
+    private static double[] measure(BenchmarkRunner runner, String key, int tabCount, int width,
+            boolean retargeting) {
+        CountingPanel panel = new CountingPanel();
+        panel.setAnimated(false);
+        TabBenchmarks.createPanel(panel, tabCount, width);
+        panel.setAnimated(true);
+        panel.setRetargeting(retargeting);
+        panel.setVirtualClock(new VirtualClock());
+
+        long warmupEnd = System.nanoTime() + runner.getWarmupNanos();
+        while (System.nanoTime() - warmupEnd < 0) {
+            run(panel);
+        }
+
+        int iterations = runner.getIterations();
+        double[][] samples = new double[4][iterations];
+        for (int i = 0; i < iterations; i++) {
+            long[] result = run(panel);
+            for (int j = 0; j < result.length; j++) {
+                samples[j][i] = result[j];
+            }
+        }
+
+        double[] medians = new double[4];
+        for (int j = 0; j < medians.length; j++) {
+            medians[j] = median(samples[j]);
+        }
+        runner.addResult(key + ".transitions", medians[0], "");
+        runner.addResult(key + ".setups", medians[1], "");
+        runner.addResult(key + ".captures", medians[2], "");
+        runner.addResult(key + ".cpu", medians[3], "ns");
+        return medians;
+    }
+
+    /**
+     * Selects the next tab 20 times, advancing the clock by less than the
+     * transition duration between selections, and then renders until the
+     * transition ends.  Returns the transitions begun, setups, captures and
+     * CPU time.
+     */
+    private static long[] run(CountingPanel panel) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        VirtualClock clock = panel.getVirtualClock();
+        ContainerTransition transition = panel.getTransition();
+        TabModel model = panel.getModel();
+        long captures = transition.getCaptureCount();
+        panel.begins = 0;
+        panel.setups = 0;
+
+        long cpuTime = threadBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < SELECTIONS; i++) {
+            int index = model.indexOf(model.getSelected());
+            panel.selectEntry(model.get((index + 1) % model.size()));
+            clock.advance(SELECTION_INTERVAL);
+            panel.paintFrame();
+        }
+        while (clock.isRunning()) {
+            clock.advance(FRAME_INTERVAL);
+            panel.paintFrame();
+        }
+        cpuTime = threadBean.getCurrentThreadCpuTime() - cpuTime;
+
+        return new long[] { panel.begins, panel.setups, transition.getCaptureCount() - captures, cpuTime };
+    }
+
+    /**
+     * Returns the median of the specified samples.
+     */
+    private static double median(double[] samples) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Panel that counts transitions begun and screens set up, and paints
+     * frames into an offscreen image.  The quality governor is disabled, so
+     * every selection is animated.
+     */
+    private static class CountingPanel extends AnimatedTabPanel {
+        private BufferedImage image;
+        private int begins;
+        private int setups;
+
+        public CountingPanel() {
+            getQualityGovernor().setEnabled(false);
+        }
+
+        @Override
+        void startTransition(int duration) {
+            if (!isRetargeting() || !getTransition().isRunning()) {
+                begins++;
+            }
+            super.startTransition(duration);
+        }
+
+        @Override
+        public void setupNextScreen() {
+            setups++;
+            super.setupNextScreen();
+        }
+
+        /**
+         * Paints the display component into the frame image.
+         */
+        public void paintFrame() {
+            JComponent component = getComponent();
+            int width = Math.max(component.getWidth(), 1);
+            int height = Math.max(component.getHeight(), 1);
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+            Graphics2D g2d = image.createGraphics();
+            try {
+                g2d.setComposite(AlphaComposite.Clear);
+                g2d.fillRect(0, 0, width, height);
+                g2d.setComposite(AlphaComposite.SrcOver);
+                component.paint(g2d);
+            } finally {
+                g2d.dispose();
+            }
+        }
+    }
+}
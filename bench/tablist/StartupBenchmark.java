@@ -0,0 +1,226 @@
+package tablist;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+
+/**
+ * Headless startup benchmark for the tab list.  Run using the Ant
+ * "bench-startup" target.
+ *
+ * <p>Each sample is measured in a new JVM, which builds content like the demo
+ * application with the specified number of tabs, and paints it into an
+ * image.  Two times are reported in nanoseconds:</p>
+ * <ul>
+ * <li><code>firstFrame</code> - from JVM start until the first frame is
+ * painted</li>
+ * <li><code>firstAnimation</code> - from the start of the first animated
+ * operation until its first frame is painted, after the application has
+ * been idle for <code>bench.idle</code> milliseconds</li>
+ * </ul>
+ *
+ * <p>Both are measured with and without <code>warmUpTransitions()</code>;
+ * the results with warm-up use the suffix "WarmUp".  The median of
+ * <code>bench.iterations</code> JVMs is reported.  The first animated
+ * operation is driven by a VirtualClock, so that its transition starts
+ * without a display.</p>
+ */
+public class StartupBenchmark {
+
+    private static final String RESULT_PREFIX = "startup ";
+    private static final int TAB_HEIGHT = 36;
+
+    /**
+     * Main benchmark method.  When called with arguments, this measures a
+     * single sample in the current JVM.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        if (args.length > 0) {
+            measureSample(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Boolean.parseBoolean(args[2]));
+            return;
+        }
+
+        // Use fewer combinations by default, since each sample starts a JVM.
+        if (System.getProperty("bench.tabs") == null) {
+            System.setProperty("bench.tabs", "10,100000");
+        }
+        if (System.getProperty("bench.widths") == null) {
+            System.setProperty("bench.widths", "600");
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner();
+        for (int tabCount : runner.getTabCounts()) {
+            for (int width : runner.getWidths()) {
+                for (boolean warmUp : new boolean[] { false, true }) {
+                    String suffix = warmUp ? "WarmUp" : "";
+                    double[][] samples = new double[2][runner.getIterations()];
+                    for (int i = 0; i < runner.getIterations(); i++) {
+                        long[] sample = runSample(tabCount, width, warmUp);
+                        samples[0][i] = sample[0];
+                        samples[1][i] = sample[1];
+                    }
+                    runner.addResult("firstFrame" + suffix + "." + tabCount + "." + width, median(samples[0]));
+                    runner.addResult("firstAnimation" + suffix + "." + tabCount + "." + width, median(samples[1]));
+                }
+            }
+        }
+
+        boolean passed = runner.finish();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Measures a single sample in a new JVM, and returns the time to first
+     * frame and time to first animation.
+     */
+    private static long[] runSample(int tabCount, int width, boolean warmUp) throws Exception {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Djava.awt.headless=true");
+        command.add("-Dbench.idle=" + Integer.getInteger("bench.idle", 500));
+        command.add(StartupBenchmark.class.getName());
+        command.add(Integer.toString(tabCount));
+        command.add(Integer.toString(width));
+        command.add(Boolean.toString(warmUp));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long[] result = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    String[] tokens = line.substring(RESULT_PREFIX.length()).split(" ");
+                    result = new long[] { Long.parseLong(tokens[0]), Long.parseLong(tokens[1]) };
+                } else {
+                    System.out.println(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new IllegalStateException("Startup sample failed with exit code " + exitCode);
+        }
+        return result;
+    }
+
+    /**
+     * Measures the time to first frame and time to first animation in the
+     * current JVM, and prints the results.
+     */
+    private static void measureSample(final int tabCount, final int width, boolean warmUp) throws Exception {
+        if (warmUp) {
+            AnimatedTabPanel.warmUpTransitions();
+        }
+
+        // Build and paint the first frame.
+        final AnimatedTabPanel[] panel = new AnimatedTabPanel[1];
+        final JPanel[] windowPanel = new JPanel[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+
+                panel[0] = new AnimatedTabPanel();
+                windowPanel[0] = createWindowPanel(panel[0], width);
+                List<String> names = new ArrayList<String>(tabCount);
+                for (int i = 0; i < tabCount; i++) {
+                    names.add("Tab " + i);
+                }
+                panel[0].addTabs(names);
+                paint(windowPanel[0]);
+            }
+        });
+        long firstFrameMillis = System.currentTimeMillis();
+
+        // Perform the first animated operation after an idle period.
+        Thread.sleep(Integer.getInteger("bench.idle", 500));
+        final long[] animationNanos = new long[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                panel[0].setVirtualClock(new VirtualClock());
+                long start = System.nanoTime();
+                panel[0].addTab("New Tab");
+                paint(windowPanel[0]);
+                animationNanos[0] = System.nanoTime() - start;
+            }
+        });
+
+        // The JVM start time is obtained last, so that loading the management
+        // classes is not measured.
+        long startMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println(RESULT_PREFIX + ((firstFrameMillis - startMillis) * 1000000L) + " " + animationNanos[0]);
+        System.exit(0);
+    }
+
+    /**
+     * Creates content like the demo window, with the specified width.
+     */
+    private static JPanel createWindowPanel(AnimatedTabPanel panel, int width) {
+        JPanel topPanel = new JPanel(new BorderLayout());
+        JButton addButton = new JButton("Add Tab");
+        addButton.setPreferredSize(new Dimension(120, 23));
+        topPanel.add(addButton, BorderLayout.WEST);
+        topPanel.add(panel.getComponent(), BorderLayout.CENTER);
+
+        JPanel contentPanel = new JPanel();
+        contentPanel.setPreferredSize(new Dimension(width, 120));
+
+        JPanel windowPanel = new JPanel(new BorderLayout());
+        windowPanel.add(topPanel, BorderLayout.NORTH);
+        windowPanel.add(contentPanel, BorderLayout.CENTER);
+        windowPanel.setSize(width, TAB_HEIGHT + 120);
+        TabBenchmarks.layoutTree(windowPanel);
+        return windowPanel;
+    }
+
+    /**
+     * Lays out and paints the specified component into an image.
+     */
+    private static void paint(JPanel windowPanel) {
+        TabBenchmarks.layoutTree(windowPanel);
+        BufferedImage image = new BufferedImage(windowPanel.getWidth(), windowPanel.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            windowPanel.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Returns the median of the specified samples.
+     */
+    private static double median(double[] samples) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
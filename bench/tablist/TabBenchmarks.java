@@ -0,0 +1,921 @@
+package tablist;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.JPanel;
+
+import org.jdesktop.animation.timing.Animator;
+import org.jdesktop.animation.timing.TimingTarget;
+import org.jdesktop.animation.timing.interpolation.PropertySetter;
+
+/**
+ * Headless benchmarks for the tab list.  Run using the Ant "bench" target.
+ */
+public class TabBenchmarks {
+
+    private static final int TAB_HEIGHT = 36;
+
+    /**
+     * Main benchmark method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.add(new AddRemoveTab());
+        benchmarks.add(new AddRemoveTabs(false));
+        benchmarks.add(new AddRemoveTabs(true));
+        benchmarks.add(new SelectTab());
+        benchmarks.add(new CycleRecentTabs());
+        benchmarks.add(new LayoutTabs());
+        benchmarks.add(new ShiftTabs(false));
+        benchmarks.add(new ShiftTabs(true));
+        benchmarks.add(new Resize());
+        benchmarks.add(new RenameTab());
+        benchmarks.add(new PaintTab(true));
+        benchmarks.add(new PaintTab(false));
+        benchmarks.add(new PaintPanel(true, false));
+        benchmarks.add(new PaintPanel(false, false));
+        benchmarks.add(new PaintPanel(true, true));
+        benchmarks.add(new ValidateTabs(false));
+        benchmarks.add(new ValidateTabs(true));
+        benchmarks.add(new OpenTabListPopup());
+        benchmarks.add(new SearchTabs());
+        benchmarks.add(new RestoreSession(false));
+        benchmarks.add(new RestoreSession(true));
+        benchmarks.add(new CreateEffects());
+        benchmarks.add(new PooledEffects());
+        benchmarks.add(new EffectFrame(false));
+        benchmarks.add(new EffectFrame(true));
+        benchmarks.add(new RunTransition(true));
+        benchmarks.add(new RunTransition(false));
+        benchmarks.add(new TransitionSetup());
+
+        boolean passed = new BenchmarkRunner().run(benchmarks);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Creates a non-animated panel with the specified number of tabs, laid
+     * out at the specified width.
+     */
+    static AnimatedTabPanel createPanel(int tabCount, int width) {
+        AnimatedTabPanel panel = new AnimatedTabPanel();
+        panel.setAnimated(false);
+        return createPanel(panel, tabCount, width);
+    }
+
+    /**
+     * Adds the specified number of tabs to the panel, laid out at the 
+     * specified width.
+     */
+    static <T extends AnimatedTabPanel> T createPanel(T panel, int tabCount, int width) {
+        panel.getComponent().setSize(width, TAB_HEIGHT);
+        panel.getComponent().doLayout();
+
+        List<String> names = new ArrayList<String>(tabCount);
+        for (int i = 0; i < tabCount; i++) {
+            names.add("Tab " + i);
+        }
+        panel.addTabs(names);
+        layoutTree(panel.getComponent());
+        return panel;
+    }
+
+    /**
+     * Lays out the specified container and its descendants.  This is needed
+     * because validate() has no effect on containers that are not displayed.
+     */
+    static void layoutTree(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) {
+                layoutTree((Container) child);
+            }
+        }
+    }
+
+    /**
+     * Creates an array of random indices less than the specified size.
+     */
+    static int[] createIndices(int size) {
+        Random random = new Random(42);
+        int[] indices = new int[1024];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(size);
+        }
+        return indices;
+    }
+
+    /**
+     * Adds a tab to the front of the list, and removes it again.
+     */
+    static class AddRemoveTab extends Benchmark {
+        private AnimatedTabPanel panel;
+
+        public AddRemoveTab() {
+            super("addRemoveTab");
+        }
+
+        @Override
+        public boolean isLargeScale() {
+            return true;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+        }
+
+        @Override
+        public void run() {
+            panel.addTab("Bench");
+            panel.removeEntry(panel.getModel().getSelected());
+        }
+    }
+
+    /**
+     * Adds 20 tabs and removes them again, with a transition set up for each
+     * change, or with one transition for all the changes in a batch.
+     */
+    static class AddRemoveTabs extends Benchmark {
+        private static final int COUNT = 20;
+
+        private final boolean batch;
+        private final List<String> names = new ArrayList<String>();
+        private final List<TabModel.Entry> entries = new ArrayList<TabModel.Entry>();
+        private TransitionPanel panel;
+
+        public AddRemoveTabs(boolean batch) {
+            super(batch ? "addRemoveTabsBatch" : "addRemoveTabsSingle");
+            this.batch = batch;
+            for (int i = 0; i < COUNT; i++) {
+                names.add("Bench " + i);
+            }
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(new TransitionPanel(), tabCount, width);
+        }
+
+        @Override
+        public void run() {
+            if (batch) {
+                panel.addTabs(names);
+            } else {
+                for (String name : names) {
+                    panel.addTab(name);
+                }
+            }
+
+            TabModel model = panel.getModel();
+            entries.clear();
+            for (int i = 0; i < COUNT; i++) {
+                entries.add(model.get(i));
+            }
+            if (batch) {
+                panel.removeTabs(entries);
+            } else {
+                for (TabModel.Entry entry : entries) {
+                    panel.removeEntry(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects a random tab, which scrolls the visible tabs as needed.
+     */
+    static class SelectTab extends Benchmark {
+        private AnimatedTabPanel panel;
+        private int[] indices;
+        private int next;
+
+        public SelectTab() {
+            super("selectTab");
+        }
+
+        @Override
+        public boolean isLargeScale() {
+            return true;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            indices = createIndices(tabCount);
+        }
+
+        @Override
+        public void run() {
+            TabModel model = panel.getModel();
+            panel.selectEntry(model.get(indices[next++ & 1023]));
+        }
+    }
+
+    /**
+     * Cycles through recently used tabs, as when Ctrl+Tab is held.  The 
+     * history holds 64 random tabs, so each step usually scrolls the visible
+     * tabs to a far-off tab.
+     */
+    static class CycleRecentTabs extends Benchmark {
+        private AnimatedTabPanel panel;
+
+        public CycleRecentTabs() {
+            super("cycleRecentTabs");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            TabModel model = panel.getModel();
+            int[] indices = createIndices(tabCount);
+            for (int i = 0; i < 64; i++) {
+                panel.selectEntry(model.get(indices[i]));
+            }
+        }
+
+        @Override
+        public void run() {
+            panel.cycleRecentTabs(true);
+        }
+    }
+
+    /**
+     * Lays out the tabs when nothing has changed.
+     */
+    static class LayoutTabs extends Benchmark {
+        private AnimatedTabPanel panel;
+
+        public LayoutTabs() {
+            super("layoutTabs");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+        }
+
+        @Override
+        public void run() {
+            panel.setupNextScreen();
+        }
+    }
+
+    /**
+     * Returns the number of tab components displayed by the panel.
+     */
+    static int getVisibleTabCount(AnimatedTabPanel panel) {
+        int count = 0;
+        for (Component child : panel.getComponents()) {
+            if (child instanceof Tab) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Selects a tab beyond the visible window, and lays out the tabs as when
+     * a transition starts, then selects the first tab and lays out again.
+     * Each layout shifts the window by one tab, or by a whole window of
+     * tabs.  The cost should follow the size of the shift, and not the
+     * number of tabs.  The transition is ended after each layout, which
+     * releases the effects that the layout assigned.
+     */
+    static class ShiftTabs extends Benchmark {
+        private final boolean page;
+        private AnimatedTabPanel panel;
+        private TabModel.Entry first;
+        private TabModel.Entry target;
+
+        public ShiftTabs(boolean page) {
+            super(page ? "layoutShiftPage" : "layoutShiftOne");
+            this.page = page;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            int visibleCount = getVisibleTabCount(panel);
+            TabModel model = panel.getModel();
+            int shift = page ? visibleCount : 1;
+            first = model.get(0);
+            target = model.get(Math.min(visibleCount - 1 + shift, tabCount - 1));
+            model.setSelected(first);
+            layout();
+        }
+
+        @Override
+        public void run() {
+            TabModel model = panel.getModel();
+            model.setSelected(target);
+            layout();
+            model.setSelected(first);
+            layout();
+        }
+
+        private void layout() {
+            panel.setupNextScreen();
+            panel.getTransition().end();
+        }
+    }
+
+    /**
+     * Resizes the panel between the full and half widths, and notifies the
+     * panel by dispatching a resize event.
+     */
+    static class Resize extends Benchmark {
+        private AnimatedTabPanel panel;
+        private ComponentEvent event;
+        private int width;
+        private boolean half;
+
+        public Resize() {
+            super("resize");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            event = new ComponentEvent(panel, ComponentEvent.COMPONENT_RESIZED);
+            this.width = width;
+        }
+
+        @Override
+        public void run() {
+            half = !half;
+            panel.setSize(half ? width / 2 : width, TAB_HEIGHT);
+            panel.dispatchEvent(event);
+        }
+    }
+
+    /**
+     * Renames a random tab between a short and a long name, which changes
+     * its width and the tabs that fit in the panel.
+     */
+    static class RenameTab extends Benchmark {
+        private AnimatedTabPanel panel;
+        private int[] indices;
+        private int next;
+
+        public RenameTab() {
+            super("renameTab");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            indices = createIndices(tabCount);
+        }
+
+        @Override
+        public void run() {
+            int index = indices[next++ & 1023];
+            String name = ((next & 1) == 0) ? "Tab " + index : "A much longer name for tab " + index;
+            panel.renameEntry(panel.getModel().get(index), name);
+        }
+    }
+
+    /**
+     * Sets whether the visible tabs in the panel use cached images.
+     */
+    static void setCacheEnabled(AnimatedTabPanel panel, boolean cached) {
+        for (Component child : panel.getComponents()) {
+            if (child instanceof Tab) {
+                ((Tab) child).setCacheEnabled(cached);
+            }
+        }
+    }
+
+    /**
+     * Paints a single tab, including its close icon, with or without the
+     * cached tab image.
+     */
+    static class PaintTab extends Benchmark {
+        private final boolean cached;
+        private Tab tab;
+        private BufferedImage image;
+        private Graphics2D g2d;
+
+        public PaintTab(boolean cached) {
+            super(cached ? "paintTab" : "paintTabUncached");
+            this.cached = cached;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            AnimatedTabPanel panel = createPanel(Math.max(tabCount, 1), width);
+            tab = panel.getSelectedTab();
+            tab.setCacheEnabled(cached);
+            image = new BufferedImage(tab.getWidth(), tab.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            g2d = image.createGraphics();
+        }
+
+        @Override
+        public void run() {
+            tab.paint(g2d);
+        }
+
+        @Override
+        public void tearDown() {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Paints the panel containing all visible tabs, with or without cached
+     * tab images, or with tabs stamped by a single renderer.  A width of 3600
+     * displays 30 tabs, and a width of 7200 displays 60 tabs.
+     */
+    static class PaintPanel extends Benchmark {
+        private final boolean cached;
+        private final boolean stamped;
+        private AnimatedTabPanel panel;
+        private BufferedImage image;
+        private Graphics2D g2d;
+
+        public PaintPanel(boolean cached, boolean stamped) {
+            super(stamped ? "paintPanelStamped" : cached ? "paintPanel" : "paintPanelUncached");
+            this.cached = cached;
+            this.stamped = stamped;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            setCacheEnabled(panel, cached);
+            panel.setStamped(stamped);
+            layoutTree(panel.getComponent());
+            image = new BufferedImage(width, TAB_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            g2d = image.createGraphics();
+        }
+
+        @Override
+        public void run() {
+            panel.getComponent().paint(g2d);
+        }
+
+        @Override
+        public void tearDown() {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Selects a random tab, and then validates the panel as the repaint
+     * manager would before painting.  This measures the cost of updating
+     * and laying out the visible tabs, with tab components or stamped tabs.
+     */
+    static class ValidateTabs extends Benchmark {
+        private final boolean stamped;
+        private AnimatedTabPanel panel;
+        private int[] indices;
+        private int next;
+
+        public ValidateTabs(boolean stamped) {
+            super(stamped ? "validateTabsStamped" : "validateTabs");
+            this.stamped = stamped;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            panel.setStamped(stamped);
+            layoutTree(panel.getComponent());
+            indices = createIndices(tabCount);
+        }
+
+        @Override
+        public void run() {
+            TabModel model = panel.getModel();
+            panel.selectEntry(model.get(indices[next++ & 1023]));
+            layoutTree(panel.getComponent());
+        }
+    }
+
+    /**
+     * Updates the tab list popup for a random selected tab, lays it out and
+     * paints it, as when the popup is opened.
+     */
+    static class OpenTabListPopup extends Benchmark {
+        private TabModel model;
+        private TabListPopup popup;
+        private int[] indices;
+        private int next;
+        private BufferedImage image;
+        private Graphics2D g2d;
+
+        public OpenTabListPopup() {
+            super("openTabListPopup");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            model = createPanel(tabCount, width).getModel();
+            popup = new TabListPopup(model, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                }
+            });
+            indices = createIndices(tabCount);
+            popup.updateList();
+            popup.setSize(popup.getPreferredSize());
+            image = new BufferedImage(popup.getWidth(), popup.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            g2d = image.createGraphics();
+        }
+
+        @Override
+        public void run() {
+            model.setSelected(model.get(indices[next++ & 1023]));
+            popup.updateList();
+            popup.setSize(popup.getPreferredSize());
+            layoutTree(popup);
+            popup.paint(g2d);
+        }
+
+        @Override
+        public void tearDown() {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Searches for tabs one keystroke at a time, as when typing into the
+     * quick switcher.  The queries alternate between two words, so the
+     * first keystroke of each word searches all tabs.
+     */
+    static class SearchTabs extends Benchmark {
+        private static final String[] QUERIES = {
+            "t", "ta", "tab", "tab ", "tab 1", "tab 12", "tab 123",
+            "9", "99", "99 ", "9", "b9", "b99", "b999"
+        };
+        
+        private TabSearchIndex searchIndex;
+        private int next;
+
+        public SearchTabs() {
+            super("searchTabs");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            searchIndex = new TabSearchIndex();
+            for (TabModel.Entry entry : createPanel(tabCount, width).getModel().getEntries()) {
+                searchIndex.add(entry);
+            }
+        }
+
+        @Override
+        public void run() {
+            searchIndex.search(QUERIES[next++ % QUERIES.length], 12);
+        }
+    }
+
+    /**
+     * Restores a session into a panel, and paints the first frame.  The
+     * session is either restored from a session file, or rebuilt by adding
+     * the tabs by name.  The same panel is reused because resizing a new
+     * panel queues events that hold it until the benchmark completes.
+     */
+    static class RestoreSession extends Benchmark {
+        private final boolean fromFile;
+        private AnimatedTabPanel panel;
+        private File file;
+        private List<String> names;
+        private BufferedImage image;
+        private Graphics2D g2d;
+
+        public RestoreSession(boolean fromFile) {
+            super(fromFile ? "restoreSession" : "restoreSessionAddTabs");
+            this.fromFile = fromFile;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(tabCount, width);
+            try {
+                file = File.createTempFile("bench", ".session");
+                TabSession.save(panel, file);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            names = new ArrayList<String>(tabCount);
+            for (int i = 0; i < tabCount; i++) {
+                names.add("Tab " + i);
+            }
+            image = new BufferedImage(width, TAB_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            g2d = image.createGraphics();
+        }
+
+        @Override
+        public void run() {
+            if (fromFile) {
+                try {
+                    TabSession.restore(panel, file);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            } else {
+                panel.removeAllTabs();
+                panel.addTabs(names);
+            }
+            layoutTree(panel.getComponent());
+            panel.getComponent().paint(g2d);
+        }
+
+        @Override
+        public void tearDown() {
+            g2d.dispose();
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates move-in and move-out effects using the factory methods.
+     */
+    static class CreateEffects extends Benchmark {
+        private int width;
+
+        public CreateEffects() {
+            super("createEffects");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            this.width = width;
+        }
+
+        @Override
+        public void run() {
+            EffectsUtilities.createMoveInEffect(width, 0, true);
+            EffectsUtilities.createMoveOutEffect(width, 0, false);
+        }
+    }
+
+    /**
+     * Obtains move-in and move-out effects from a pool, releasing them
+     * periodically as a transition would.
+     */
+    static class PooledEffects extends Benchmark {
+        private EffectsUtilities.EffectPool pool;
+        private int width;
+        private int count;
+
+        public PooledEffects() {
+            super("pooledEffects");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            pool = new EffectsUtilities.EffectPool();
+            this.width = width;
+        }
+
+        @Override
+        public void run() {
+            pool.getMoveInEffect(width, 0, true);
+            pool.getMoveOutEffect(width, 0, false);
+            if ((++count & 15) == 0) {
+                pool.releaseAll();
+            }
+        }
+    }
+
+    /**
+     * Updates a move-in and grow effect for one frame, either through the
+     * direct timing targets of the effects, or through PropertySetters on
+     * the "location", "width" and "height" properties as the effects did
+     * before.  Run with <code>bench.memory=true</code> to report the bytes
+     * allocated per frame.  Both paths are checked to give the same bounds
+     * before they are measured.
+     */
+    static class EffectFrame extends Benchmark {
+        private static final Rectangle START = new Rectangle(-100, 0, 0, 0);
+        private static final Rectangle END = new Rectangle(240, 2, 120, 32);
+
+        private final boolean propertySetter;
+        private List<TimingTarget> targets;
+        private TransitionEffect effect;
+        private int next;
+
+        public EffectFrame(boolean propertySetter) {
+            super(propertySetter ? "effectFramePropertySetter" : "effectFrame");
+            this.propertySetter = propertySetter;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            effect = createEffect(propertySetter);
+            targets = initEffect(effect);
+            TransitionEffect other = createEffect(!propertySetter);
+            List<TimingTarget> otherTargets = initEffect(other);
+            for (int i = 0; i <= 16; i++) {
+                float fraction = i / 16.0f;
+                setFraction(targets, fraction);
+                setFraction(otherTargets, fraction);
+                if (!effect.getBounds().equals(other.getBounds())) {
+                    throw new IllegalStateException("Bounds differ at " + fraction + ": " +
+                            effect.getBounds() + " != " + other.getBounds());
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            setFraction(targets, (next++ & 15) / 16.0f);
+        }
+
+        /**
+         * Creates a move-in and grow effect with the test bounds.
+         */
+        private static TransitionEffect createEffect(boolean propertySetter) {
+            TransitionEffect effect;
+            if (propertySetter) {
+                effect = new PropertyMoveIn(START.x, START.y);
+            } else {
+                effect = new EffectsUtilities.EffectPool().getMoveInEffect(START.x, START.y, true);
+            }
+            effect.setStart(END);
+            effect.setEnd(END);
+            return effect;
+        }
+
+        /**
+         * Initializes the effect, and returns the timing targets it adds.
+         */
+        private static List<TimingTarget> initEffect(TransitionEffect effect) {
+            final List<TimingTarget> targets = new ArrayList<TimingTarget>();
+            ContainerTransition transition = new ContainerTransition(new JPanel(), null,
+                    new Animator(250), new EffectRegistry()) {
+                @Override
+                public void addTarget(TimingTarget target) {
+                    targets.add(target);
+                }
+            };
+            effect.init(transition, null);
+            return targets;
+        }
+
+        /**
+         * Sends a timing event with the specified fraction to the targets.
+         */
+        private static void setFraction(List<TimingTarget> targets, float fraction) {
+            for (int i = 0, size = targets.size(); i < size; i++) {
+                targets.get(i).timingEvent(fraction);
+            }
+        }
+    }
+
+    /**
+     * Effect that moves in and grows using PropertySetters, as the move-in
+     * and grow effects did before they used direct timing targets.  The
+     * class is public so that the PropertySetter can call its setters.
+     */
+    public static class PropertyMoveIn extends TransitionEffect {
+        private final Point startLocation;
+
+        public PropertyMoveIn(int x, int y) {
+            startLocation = new Point(x, y);
+        }
+
+        /**
+         * Sets the location.  This is called by the PropertySetter.
+         */
+        public void setLocation(Point location) {
+            setX(location.x);
+            setY(location.y);
+        }
+
+        @Override
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            transition.addTarget(new PropertySetter(this, "location",
+                    startLocation, new Point(getEnd().x, getEnd().y)));
+            transition.addTarget(new PropertySetter(this, "width", 0, getEnd().width));
+            transition.addTarget(new PropertySetter(this, "height", 0, getEnd().height));
+            super.init(transition, parentEffect);
+        }
+    }
+
+    /**
+     * Runs a whole transition in virtual time, painting every frame, with
+     * effects from the pool of the panel or created for each transition.
+     * Each transition shifts the visible tabs by a whole window, so every
+     * visible tab is given an effect.  Run with <code>bench.memory=true</code>
+     * to report the bytes allocated per transition.
+     */
+    static class RunTransition extends Benchmark {
+        private final boolean pooled;
+        private AnimatedTabPanel panel;
+        private VirtualClock clock;
+        private TabModel.Entry first;
+        private TabModel.Entry target;
+        private boolean toTarget;
+        private BufferedImage image;
+        private Graphics2D g2d;
+
+        public RunTransition(boolean pooled) {
+            super(pooled ? "runTransition" : "runTransitionUnpooled");
+            this.pooled = pooled;
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = new AnimatedTabPanel();
+            panel.getQualityGovernor().setEnabled(false);
+            panel.setAnimated(false);
+            createPanel(panel, tabCount, width);
+            panel.setAnimated(true);
+            clock = new VirtualClock();
+            panel.setVirtualClock(clock);
+            panel.getEffectPool().setEnabled(pooled);
+
+            int visibleCount = getVisibleTabCount(panel);
+            TabModel model = panel.getModel();
+            first = model.get(0);
+            target = model.get(Math.min(2 * visibleCount - 1, tabCount - 1));
+            image = new BufferedImage(width, TAB_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            g2d = image.createGraphics();
+        }
+
+        @Override
+        public void run() {
+            toTarget = !toTarget;
+            panel.selectEntry(toTarget ? target : first);
+            while (clock.isRunning()) {
+                clock.advance(20);
+                panel.getComponent().paint(g2d);
+            }
+        }
+
+        @Override
+        public void tearDown() {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Adds a tab and removes it again, running the setup of a transition for
+     * each change, as when the transition starts.  The transition then ends
+     * immediately, so no frames are painted.  Run with
+     * <code>bench.memory=true</code> to also report the bytes allocated per
+     * operation.
+     */
+    static class TransitionSetup extends Benchmark {
+        private TransitionPanel panel;
+
+        public TransitionSetup() {
+            super("transitionSetup");
+        }
+
+        @Override
+        public void setUp(int tabCount, int width) {
+            panel = createPanel(new TransitionPanel(), tabCount, width);
+        }
+
+        @Override
+        public void run() {
+            panel.addTab("Bench");
+            panel.removeEntry(panel.getModel().getSelected());
+        }
+    }
+
+    /**
+     * Panel that runs the setup of each transition synchronously without a
+     * display.
+     */
+    static class TransitionPanel extends AnimatedTabPanel {
+
+        public TransitionPanel() {
+            getQualityGovernor().setEnabled(false);
+        }
+
+        @Override
+        boolean canAnimate() {
+            return isAnimated();
+        }
+
+        @Override
+        void startTransition(int duration) {
+            ContainerTransition transition = getTransition();
+            transition.begin();
+            transition.end();
+        }
+    }
+}
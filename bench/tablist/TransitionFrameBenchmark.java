@@ -0,0 +1,214 @@
+package tablist;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless benchmark of complete tab transitions, rendered offline in
+ * virtual time.  Run using the Ant "bench-frames" target.
+ *
+ * <p>Each scenario starts one transition, which is stepped at a fixed
+ * timestep by an OfflineTransitionRenderer, and every frame is painted.  The
+ * median over <code>bench.iterations</code> transitions is reported for:</p>
+ * <ul>
+ * <li><code>setupCpu</code> - CPU nanoseconds of the operation and first
+ * frame</li>
+ * <li><code>frameCpu</code> - average CPU nanoseconds of later frames</li>
+ * <li><code>setupBytes</code> and <code>frameBytes</code> - bytes allocated
+ * by the same frames</li>
+ * </ul>
+ *
+ * <p>The timestep is set using <code>bench.frameInterval</code> in
+ * milliseconds.  If <code>bench.dump</code> is set to a directory, the
+ * frames of the first measured transition of each scenario are written to
+ * it as PNG files.  Results are compared against <code>bench.baseline</code>
+ * like the other benchmarks.</p>
+ */
+public class TransitionFrameBenchmark {
+
+    /**
+     * Main benchmark method.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final BenchmarkRunner runner = new BenchmarkRunner();
+        final int frameInterval = Integer.getInteger("bench.frameInterval", 20);
+        final String dump = System.getProperty("bench.dump");
+        final IOException[] error = new IOException[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int tabCount : runner.getTabCounts()) {
+                        for (int width : runner.getWidths()) {
+                            for (Scenario scenario : Scenario.values()) {
+                                measure(runner, scenario, tabCount, width, frameInterval,
+                                        (dump != null) ? new File(dump) : null);
+                            }
+                        }
+                    }
+                } catch (IOException ex) {
+                    error[0] = ex;
+                }
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+
+        boolean passed = runner.finish();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Tab operation that starts a transition.
+     */
+    private static enum Scenario {
+        ADD_TAB("addTab"),
+        REMOVE_TAB("removeTab"),
+        SELECT_NEXT("selectNext"),
+        SELECT_VISIBLE("selectVisible");
+
+        private final String name;
+
+        private Scenario(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Measures the specified scenario, and records the results.
+     */
+    private static void measure(BenchmarkRunner runner, Scenario scenario, int tabCount, int width,
+            int frameInterval, File dumpDirectory) throws IOException {
+        final AnimatedTabPanel panel = new AnimatedTabPanel();
+        panel.getQualityGovernor().setEnabled(false);
+        panel.setAnimated(false);
+        TabBenchmarks.createPanel(panel, tabCount, width);
+        panel.setAnimated(true);
+        OfflineTransitionRenderer renderer = new OfflineTransitionRenderer(panel, frameInterval);
+        Runnable[] operations = createOperations(panel, scenario);
+        String key = scenario.name + "." + tabCount + "." + width;
+
+        // Warm up, then measure.
+        long warmupEnd = System.nanoTime() + runner.getWarmupNanos();
+        while (System.nanoTime() - warmupEnd < 0) {
+            render(renderer, key, operations);
+        }
+
+        int iterations = runner.getIterations();
+        double[][] samples = new double[4][iterations];
+        for (int i = 0; i < iterations; i++) {
+            renderer.setDumpDirectory((i == 0) ? dumpDirectory : null);
+            OfflineTransitionRenderer.FrameReport report = render(renderer, key, operations);
+            samples[0][i] = report.getCpuTime(0);
+            samples[1][i] = report.getMeanFrameCpuTime();
+            samples[2][i] = report.getAllocatedBytes(0);
+            samples[3][i] = report.getMeanFrameAllocatedBytes();
+        }
+
+        runner.addResult(key + ".setupCpu", median(samples[0]), "ns");
+        runner.addResult(key + ".frameCpu", median(samples[1]), "ns/frame");
+        runner.addResult(key + ".setupBytes", median(samples[2]), "B");
+        runner.addResult(key + ".frameBytes", median(samples[3]), "B/frame");
+    }
+
+    /**
+     * Renders the transition of the first operation, and then runs the
+     * second operation if not null.
+     */
+    private static OfflineTransitionRenderer.FrameReport render(OfflineTransitionRenderer renderer,
+            String key, Runnable[] operations) throws IOException {
+        OfflineTransitionRenderer.FrameReport report = renderer.render(key, operations[0]);
+        if (operations[1] != null) {
+            operations[1].run();
+        }
+        return report;
+    }
+
+    /**
+     * Creates an operation that performs the specified scenario on the
+     * panel, followed by an operation that restores the panel without a
+     * transition, so every iteration starts from the same tab count.  The
+     * second operation is not measured.
+     */
+    private static Runnable[] createOperations(final AnimatedTabPanel panel, Scenario scenario) {
+        final TabModel model = panel.getModel();
+        switch (scenario) {
+        case ADD_TAB:
+            return new Runnable[] {
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        panel.addTab("New Tab");
+                    }
+                },
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        panel.setAnimated(false);
+                        panel.removeEntry(model.getSelected());
+                        panel.setAnimated(true);
+                    }
+                }
+            };
+        case REMOVE_TAB:
+            return new Runnable[] {
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        int startIdx = panel.getVisibleStart();
+                        panel.removeEntry(model.get(Math.min(startIdx + 1, model.size() - 1)));
+                    }
+                },
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        panel.setAnimated(false);
+                        panel.addTab("Tab");
+                        panel.setAnimated(true);
+                    }
+                }
+            };
+        case SELECT_NEXT:
+            return new Runnable[] {
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        int index = model.indexOf(model.getSelected());
+                        panel.selectEntry(model.get((index + 1) % model.size()));
+                    }
+                },
+                null
+            };
+        default:
+            return new Runnable[] {
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        int startIdx = panel.getVisibleStart();
+                        int index = model.indexOf(model.getSelected());
+                        panel.selectEntry(model.get((index != startIdx) ? startIdx : 
+                            Math.min(startIdx + 1, model.size() - 1)));
+                    }
+                },
+                null
+            };
+        }
+    }
+
+    /**
+     * Returns the median of the specified samples.
+     */
+    private static double median(double[] samples) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
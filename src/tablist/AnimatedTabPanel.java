@@ -2,86 +2,150 @@ package tablist;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
 import javax.swing.BorderFactory;
+import javax.swing.InputMap;
 import javax.swing.JButton;
 import javax.swing.JComponent;
-import javax.swing.JMenuItem;
 import javax.swing.JPanel;
-import javax.swing.JPopupMenu;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
 
 import org.jdesktop.animation.timing.Animator;
-import org.jdesktop.animation.transitions.EffectsManager;
-import org.jdesktop.animation.transitions.ScreenTransition;
-import org.jdesktop.animation.transitions.TransitionTarget;
-import org.jdesktop.animation.transitions.EffectsManager.TransitionType;
 
 /**
  * Container to display animated tabs.  The display component should be
  * obtained by calling <code>getComponent()</code>.
+ *
+ * <p>The transition machinery is created when the first animation starts.
+ * Tab changes made before the panel is showing are laid out immediately, so
+ * the first frame is painted without loading the transition classes.  Call
+ * <code>warmUpTransitions()</code> at startup to load them in the
+ * background before the first animation.</p>
  */
 public class AnimatedTabPanel extends JPanel implements TransitionTarget {
     private static final int MAX_TAB_WIDTH = 205;
     private static final int MIN_TAB_WIDTH = 115;
     private static final int RIGHT_INSET = 3;
+    private static final int TAB_INSETS_WIDTH = 4;
+    private static final int MORE_INSETS_WIDTH = 34;
+    private static final String MORE_TEXT = "More";
     
-    private final List<Tab> tabList = new ArrayList<Tab>();
+    /**
+     * Transition classes loaded by <code>warmUpTransitions()</code>.  These
+     * are names rather than class literals, so that the classes are not
+     * loaded until the warm-up runs.
+     */
+    private static final String[] WARM_UP_CLASSES = {
+        "tablist.ContainerTransition",
+        "tablist.ContainerTransition$DefaultEffects",
+        "tablist.EffectRegistry",
+        "tablist.EffectRegistry$TransitionType",
+        "tablist.EffectsUtilities$Move",
+        "tablist.EffectsUtilities$FadeIn",
+        "tablist.EffectsUtilities$FadeOut"
+    };
+    
+    private static final AtomicBoolean warmUpStarted = new AtomicBoolean();
+    
+    private final TabModel model = new TabModel();
+    private final List<TabModel.Entry> boundEntries = new ArrayList<TabModel.Entry>();
+    private final List<Tab> releasedTabs = new ArrayList<Tab>();
+    private final List<Tab> shownTabs = new ArrayList<Tab>();
+    private final Deque<Tab> tabPool = new ArrayDeque<Tab>();
+    private final SelectAction tabSelectAction = new SelectAction();
+    private final RemoveAction tabRemoveAction = new RemoveAction();
     private final JComponent parent;
-    private final JButton moreButton;
+    private final GridBagLayout gridBag = new GridBagLayout();
+    private final GridBagConstraints tabConstraints = new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0,
+            GridBagConstraints.SOUTHWEST, GridBagConstraints.VERTICAL, new Insets(3,2,0,2), 0, 0);
+    private final GridBagConstraints stripConstraints = new GridBagConstraints(0, 0, 1, 1, 1.0, 1.0,
+            GridBagConstraints.SOUTHWEST, GridBagConstraints.BOTH, new Insets(0,0,0,0), 0, 0);
+    private final GridBagConstraints moreConstraints = new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0,
+            GridBagConstraints.EAST, GridBagConstraints.NONE, new Insets(0,0,0,0), 0, 0);
     
-    private final Animator animator;
-    private final ScreenTransition transition;
+    private final TransitionMetrics metrics = new TransitionMetrics();
+    private final QualityGovernor governor = new QualityGovernor();
+    private final TabCommandQueue commandQueue = new TabCommandQueue(this);
     
-    private int maxVisibleTabs;
+    private EffectsUtilities.EffectPool effectPool;
+    private EffectRegistry effectRegistry;
+    private Animator animator;
+    private ContainerTransition transition;
+    private VirtualClock virtualClock;
+    private QualityGovernor.Quality transitionQuality = QualityGovernor.Quality.FULL;
+    private JButton moreButton;
+    private int moreButtonWidth = -1;
+    private Tab measureTab;
+    private TabSearchIndex searchIndex;
+    private TabListPopup tabListPopup;
+    private QuickSwitcher quickSwitcher;
     private int vizStartIdx = -1;
-    private Tab selectedTab;
+    private int vizEndIdx = -1;
     private boolean tabRemoved;
+    private boolean animated = true;
+    private boolean retargeting = true;
+    private boolean stamped;
+    private TabStrip tabStrip;
+    private TabModel.Entry cycleEntry;
+    private boolean cycling;
+    private int batchDepth;
+    private boolean batchChanged;
+    private boolean batchRemoved;
     
     /**
      * Constructs an AnimatedTabPanel.
      */
     public AnimatedTabPanel() {
     	setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 3));
-    	setLayout(new GridBagLayout());
+    	setLayout(gridBag);
         setOpaque(false);
         
-        // Wrap tab container in a parent component.  (JXLayer also works 
-        // here.)  This is needed to work around a bug in the Animated
-        // Transitions library.  To work correctly, the library requires the
-        // bounds of the animated container relative to its parent to start
-        // at location (0, 0).
+        // Wrap tab container in a parent component, which is returned as
+        // the display component.  (JXLayer also works here.)
         parent = new JPanel(new BorderLayout());
         parent.setOpaque(false);
         parent.add(this, BorderLayout.CENTER);
         
-        // Create "more" button to list all tabs.
-        moreButton = new JButton(new MoreAction());
-        
-        // Create animator and screen transition for this container.
-        animator = new Animator(250);
-        transition = new ScreenTransition(this, this, animator);
+        // Handle key bindings while the display component has focus.  The
+        // application may install them on a larger area of the window.
+        installKeyBindings(parent);
         
         // Add listener to adjust tab layout when container is resized. 
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                // Re-do tab layout when number of tabs changes.  This is NOT
+                // Re-do tab layout when visible tabs change.  This is NOT
                 // animated because (1) this usually adjusts tab widths only, 
-                // and (2) resize events can occur frequently.  
-                if (calculateVisibleTabCount() != maxVisibleTabs) {
-                    layoutTabs();
-                    revalidate();
-                    repaint();
+                // and (2) resize events can occur frequently.  The visible
+                // tabs are calculated in O(log n) time.
+                long availWidth = calculateAvailableWidth(getSize().width);
+                int startIdx = calculateVisibleStart(availWidth);
+                int endIdx = calculateVisibleEnd(startIdx, availWidth);
+                if (startIdx != vizStartIdx || endIdx != vizEndIdx) {
+                    updateLayout();
                 }
             }
         });
@@ -94,60 +158,514 @@ public class AnimatedTabPanel extends JPanel implements TransitionTarget {
         return parent;
     }
     
+    /**
+     * Installs the keyboard shortcuts of this panel on the specified
+     * component, so that they apply while it or one of its descendants has
+     * focus.  This is done for the display component when the panel is
+     * constructed.  Ctrl+P shows the quick switcher, and Ctrl+Tab and
+     * Ctrl+Shift+Tab cycle through recently used tabs.
+     */
+    public void installKeyBindings(JComponent component) {
+        InputMap inputMap = component.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+        ActionMap actionMap = component.getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK), "quickSwitch");
+        actionMap.put("quickSwitch", new QuickSwitchAction());
+        
+        // Cycle through recently used tabs while Ctrl+Tab is held, and move
+        // the chosen tab to the front of the history when Ctrl is released.
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, InputEvent.CTRL_DOWN_MASK), "cycleRecent");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                "cycleRecentBack");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_CONTROL, 0, true), "endCycleRecent");
+        actionMap.put("cycleRecent", new CycleRecentAction(true));
+        actionMap.put("cycleRecentBack", new CycleRecentAction(false));
+        actionMap.put("endCycleRecent", new EndCycleRecentAction());
+    }
+    
+    /**
+     * Returns the model containing all tab entries.
+     */
+    public TabModel getModel() {
+        return model;
+    }
+    
     /**
      * Adds a tab with the specified name.  This method starts an animation
      * to update the visible tabs.
      */
     public void addTab(String name) {
-        // Create tab.
-        Tab tab = new Tab(new SelectAction(name), new RemoveAction());
-        
-        // Set minimum and maximum widths.
-        tab.setMinimumSize(new Dimension(MIN_TAB_WIDTH, tab.getMinimumSize().height));
-        tab.setMaximumSize(new Dimension(MAX_TAB_WIDTH, tab.getMaximumSize().height));
-        int tabWidth = Math.min(Math.max(tab.getPreferredSize().width, MIN_TAB_WIDTH), MAX_TAB_WIDTH);
-        tab.setPreferredSize(new Dimension(tabWidth, tab.getPreferredSize().height));
-        
-        // Add tab to list.
-        tabList.add(0, tab);
+        // Add entry to model.  The tab component is created when the entry
+        // becomes visible.
+        TabModel.Entry entry = model.add(0, name);
+        TabEvents.tabAdded(model.size());
+        model.setWidth(entry, measureTabWidth(name));
+        if (searchIndex != null) {
+            searchIndex.add(entry);
+        }
         
         // Select tab and start animation.
-        setSelectedTab(tab);
+        setSelectedEntry(entry);
         startAnimation(false);
     }
     
+    /**
+     * Adds tabs with the specified names, in iteration order.  The last tab
+     * added is displayed first and selected.  This method starts a single
+     * animation to update the visible tabs.
+     */
+    public void addTabs(final Collection<String> names) {
+        batch(new Runnable() {
+            @Override
+            public void run() {
+                for (String name : names) {
+                    addTab(name);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Removes the specified entries from the container.  This method starts
+     * a single animation to update the visible tabs.  The entries are copied
+     * first, so they may be a view of the model such as 
+     * <code>getModel().getEntries()</code>.
+     */
+    public void removeTabs(Collection<TabModel.Entry> entries) {
+        final List<TabModel.Entry> removedEntries = new ArrayList<TabModel.Entry>(entries);
+        batch(new Runnable() {
+            @Override
+            public void run() {
+                for (TabModel.Entry entry : removedEntries) {
+                    removeEntry(entry);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Runs the specified operation as a batch.  Tab changes made by the 
+     * operation are applied to the model immediately, and a single animation
+     * is started when the outermost batch completes.
+     */
+    public void batch(Runnable operation) {
+        batchDepth++;
+        try {
+            operation.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0 && batchChanged) {
+                boolean removed = batchRemoved;
+                batchChanged = false;
+                batchRemoved = false;
+                startAnimation(removed);
+            }
+        }
+    }
+    
     /**
      * Removes the specified tab from the container.  This method starts an
      * animation to update the visible tabs.
      */
     public void removeTab(Tab tab) {
-        // Select another tab if possible.
-        if (tab == selectedTab) {
-            int index = tabList.indexOf(tab);
-            if (index < (tabList.size() - 1)) {
-                setSelectedTab(tabList.get(index + 1));
+        if (tab.getEntry() != null) {
+            removeEntry(tab.getEntry());
+        }
+    }
+    
+    /**
+     * Removes the specified entry from the container.  If the entry is
+     * selected, the most recently used other tab is selected.  This method
+     * starts an animation to update the visible tabs.
+     */
+    public void removeEntry(TabModel.Entry entry) {
+        if (model.indexOf(entry) < 0) {
+            return;
+        }
+        
+        // Select the most recently used other tab, or a neighbouring tab if
+        // no other tab has been used.
+        if (entry == cycleEntry) {
+            cycleEntry = null;
+        }
+        if (entry == model.getSelected()) {
+            TabModel.Entry recent = model.getMostRecent();
+            if (recent == entry) {
+                recent = model.getLessRecent(entry);
+            }
+            int index = model.indexOf(entry);
+            if (recent != null) {
+                setSelectedEntry(recent);
+            } else if (index < (model.size() - 1)) {
+                setSelectedEntry(model.get(index + 1));
             } else if (index > 0) {
-                setSelectedTab(tabList.get(index - 1));
+                setSelectedEntry(model.get(index - 1));
             }
         }
         
-        // Remove tab.
-        tabList.remove(tab);
+        // Remove entry.
+        model.remove(entry);
+        TabEvents.tabRemoved(model.size());
+        if (searchIndex != null) {
+            searchIndex.remove(entry);
+        }
         
         // Start animation.
         startAnimation(true);
     }
     
     /**
-     * Returns the currently selected tab.
+     * Removes all tabs from the container.  The visible tabs are updated
+     * immediately without animation.
      */
-    public Tab getSelectedTab() {
-        for (Tab tab : tabList) {
-            if (tab.isSelected()) {
-                return tab;
+    public void removeAllTabs() {
+        model.clear();
+        clearSearchIndex();
+        cycleEntry = null;
+        
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            updateLayout();
+        }
+    }
+    
+    /**
+     * Changes the name of the specified entry.  The visible tabs are updated
+     * immediately without animation.
+     */
+    public void renameEntry(TabModel.Entry entry, String name) {
+        model.setTitle(entry, name);
+        model.setWidth(entry, measureTabWidth(name));
+        if (searchIndex != null) {
+            searchIndex.update(entry);
+        }
+        if (entry.tab != null) {
+            entry.tab.bind(entry);
+            sizeTab(entry.tab);
+        }
+        
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            updateLayout();
+        }
+    }
+    
+    /**
+     * Posts a command to add a tab with the specified name.  This may be 
+     * called from any thread.  Posted commands are applied on the event
+     * dispatch thread, at most once per frame, as a single batch.
+     */
+    public void postAddTab(final String name) {
+        commandQueue.post(new Runnable() {
+            @Override
+            public void run() {
+                addTab(name);
             }
+        });
+    }
+    
+    /**
+     * Posts a command to remove the specified entry.  This may be called
+     * from any thread.  The command has no effect if the entry has already
+     * been removed.
+     */
+    public void postRemoveEntry(final TabModel.Entry entry) {
+        commandQueue.post(new Runnable() {
+            @Override
+            public void run() {
+                removeEntry(entry);
+            }
+        });
+    }
+    
+    /**
+     * Posts a command to select the specified entry.  This may be called
+     * from any thread.  The command has no effect if the entry has been
+     * removed.
+     */
+    public void postSelectEntry(final TabModel.Entry entry) {
+        commandQueue.post(new Runnable() {
+            @Override
+            public void run() {
+                if (model.indexOf(entry) >= 0) {
+                    selectEntry(entry);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Posts a command to change the name of the specified entry.  This may
+     * be called from any thread.  The command has no effect if the entry 
+     * has been removed.
+     */
+    public void postRenameEntry(final TabModel.Entry entry, final String name) {
+        commandQueue.post(new Runnable() {
+            @Override
+            public void run() {
+                if (model.indexOf(entry) >= 0) {
+                    renameEntry(entry, name);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Posts an arbitrary command that operates on this panel.  This may be
+     * called from any thread.  The command is run on the event dispatch
+     * thread in order with other posted commands, within the same batch.
+     */
+    public void postCommand(Runnable command) {
+        commandQueue.post(command);
+    }
+    
+    /**
+     * Displays the quick switcher to select a tab by typing part of its 
+     * name.  This is also displayed by pressing Ctrl+P.
+     */
+    public void showQuickSwitcher() {
+        getQuickSwitcher().show(this, 0, getHeight());
+    }
+    
+    /**
+     * Returns the quick switcher, which searches the current search index.
+     */
+    QuickSwitcher getQuickSwitcher() {
+        if (quickSwitcher == null) {
+            quickSwitcher = new QuickSwitcher(getSearchIndex(), tabSelectAction);
         }
-        return null;
+        return quickSwitcher;
+    }
+    
+    /**
+     * Selects the next tab in most recently used order, as when Ctrl+Tab is
+     * pressed, or the previous tab if <code>forward</code> is false.  Each
+     * call continues from the tab selected by the last call, until 
+     * <code>endRecentCycle()</code> is called, and the history is not 
+     * reordered in between.  The visible tabs scroll to show the selected
+     * tab.  This takes O(1) time to find the tab, regardless of the number
+     * of tabs.
+     *
+     * <p>Ctrl+Tab is a focus traversal key by default, so the window must
+     * remove it from its focus traversal keys for the key binding to 
+     * work.</p>
+     */
+    public void cycleRecentTabs(boolean forward) {
+        TabModel.Entry current = (cycleEntry != null) ? cycleEntry : model.getMostRecent();
+        if (current == null) {
+            return;
+        }
+        TabModel.Entry next = forward ? model.getLessRecent(current) : model.getMoreRecent(current);
+        if (next == null) {
+            next = forward ? model.getMostRecent() : model.getLeastRecent();
+        }
+        
+        cycling = true;
+        try {
+            selectEntry(next);
+        } finally {
+            cycling = false;
+        }
+        cycleEntry = next;
+    }
+    
+    /**
+     * Ends cycling through recently used tabs, and moves the selected tab to
+     * the front of the history.  This is called when Ctrl is released.
+     */
+    public void endRecentCycle() {
+        if (cycleEntry != null) {
+            TabModel.Entry entry = cycleEntry;
+            cycleEntry = null;
+            model.touch(entry);
+        }
+    }
+    
+    /**
+     * Returns the search index over tab names.  The index is built when it
+     * is first needed, and then updated as tabs change.
+     */
+    private TabSearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TabSearchIndex();
+            for (TabModel.Entry entry : model.getEntries()) {
+                searchIndex.add(entry);
+            }
+        }
+        return searchIndex;
+    }
+    
+    /**
+     * Discards the search index, which is rebuilt from the model when it is
+     * next needed, and the quick switcher that searches it.
+     */
+    private void clearSearchIndex() {
+        searchIndex = null;
+        if (quickSwitcher != null) {
+            quickSwitcher.setVisible(false);
+            quickSwitcher = null;
+        }
+    }
+    
+    /**
+     * Replaces all tabs with the specified number of entries whose titles
+     * are loaded on first use.  If the widths are null, or were measured
+     * with a different width signature, each title is loaded and measured.
+     * The visible tabs are updated immediately without animation, so only 
+     * the tabs in the visible window are created.
+     */
+    void restoreEntries(int count, TabModel.TitleLoader loader, int[] widths, 
+            int widthSignature, int selectedIdx, int startIdx) {
+        model.clear();
+        clearSearchIndex();
+        cycleEntry = null;
+        
+        boolean measure = (widths == null) || (widthSignature != getWidthSignature());
+        List<TabModel.Entry> entries = model.addAll(0, count, loader, measure ? null : widths);
+        if (measure) {
+            for (TabModel.Entry entry : entries) {
+                model.setWidth(entry, measureTabWidth(entry.getTitle()));
+            }
+        }
+        
+        setSelectedEntry((selectedIdx >= 0 && selectedIdx < count) ? entries.get(selectedIdx) : null);
+        vizStartIdx = startIdx;
+        updateLayout();
+    }
+    
+    /**
+     * Returns the index of the first visible tab, or -1 if tabs have not 
+     * been laid out.
+     */
+    int getVisibleStart() {
+        return vizStartIdx;
+    }
+    
+    /**
+     * Returns a value that identifies how tab widths are measured.  Saved
+     * tab widths are only valid if this value is unchanged.
+     */
+    int getWidthSignature() {
+        if (measureTab == null) {
+            measureTab = createTab();
+        }
+        return measureTab.getPreferredWidth("abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789");
+    }
+    
+    /**
+     * Selects the specified entry.  This method starts an animation to 
+     * update the visible tabs.
+     */
+    public void selectEntry(TabModel.Entry entry) {
+        setSelectedEntry(entry);
+        startAnimation(false);
+    }
+    
+    /**
+     * Returns the transition metrics for this panel.  These may be exposed
+     * through JMX by calling <code>registerMBean()</code> on the metrics.
+     */
+    public TransitionMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Returns the governor that adapts the quality of transitions to the
+     * recent frame times and rate of tab operations.  Its thresholds may be
+     * configured, or it may be disabled to always use full quality.
+     */
+    public QualityGovernor getQualityGovernor() {
+        return governor;
+    }
+    
+    /**
+     * Returns the virtual clock that drives transitions, or null if they are
+     * driven by the animator in real time.
+     */
+    public VirtualClock getVirtualClock() {
+        return virtualClock;
+    }
+    
+    /**
+     * Sets a virtual clock that drives transitions in place of the 
+     * animator, or null to use the animator.  Transitions then advance only
+     * when the clock is advanced, and run even if the panel is not showing.
+     * The quality governor also uses the virtual time, so the quality of
+     * each transition is repeatable.
+     */
+    public void setVirtualClock(VirtualClock virtualClock) {
+        stopTransition();
+        this.virtualClock = virtualClock;
+    }
+    
+    /**
+     * Returns an indicator that determines whether tab changes are animated.
+     */
+    public boolean isAnimated() {
+        return animated;
+    }
+    
+    /**
+     * Sets an indicator that determines whether tab changes are animated.
+     * When false, the visible tabs are updated immediately without a 
+     * transition.
+     */
+    public void setAnimated(boolean animated) {
+        this.animated = animated;
+    }
+    
+    /**
+     * Returns an indicator that determines whether a tab change during a
+     * transition retargets the running transition.
+     */
+    public boolean isRetargeting() {
+        return retargeting;
+    }
+    
+    /**
+     * Sets an indicator that determines whether a tab change during a
+     * transition retargets the running transition.  When true, tabs move 
+     * from their current bounds and velocity to the new layout, and only the
+     * new layout is captured.  When false, the running transition is ended 
+     * and a new transition is started.
+     */
+    public void setRetargeting(boolean retargeting) {
+        this.retargeting = retargeting;
+    }
+    
+    /**
+     * Returns an indicator that determines whether visible tabs are stamped
+     * by a single renderer instead of being displayed as tab components.
+     */
+    public boolean isStamped() {
+        return stamped;
+    }
+    
+    /**
+     * Sets an indicator that determines whether visible tabs are stamped by
+     * a single renderer instead of being displayed as tab components.  This
+     * reduces the cost of layout, validation and event dispatch when many
+     * tabs are visible, and tab images are cached as they are for tab
+     * components.  Tabs are selected and closed in the same way, but tab
+     * changes are not animated, and <code>getSelectedTab()</code> returns
+     * null.  The default value is false.
+     */
+    public void setStamped(boolean stamped) {
+        if (stamped == this.stamped) {
+            return;
+        }
+        stopTransition();
+        this.stamped = stamped;
+        updateLayout();
+    }
+    
+    /**
+     * Returns the currently selected tab, or null if no tab is selected.
+     */
+    public Tab getSelectedTab() {
+        TabModel.Entry entry = model.getSelected();
+        return (entry != null) ? entry.tab : null;
     }
 
     /**
@@ -156,65 +674,162 @@ public class AnimatedTabPanel extends JPanel implements TransitionTarget {
      */
     @Override
     public void setupNextScreen() {
-        layoutTabs();
+        long start = System.nanoTime();
+        layoutTabs(true);
+        metrics.recordSetup(System.nanoTime() - start);
     }
     
     /**
      * Performs layout for visible tabs in the container.  The visible tabs
      * depends on the first visible tab, number of tabs, tab sizes, and 
      * container size.
+     * 
+     * <p>The layout is incremental: only tabs entering or leaving the visible
+     * window are added to or removed from the container, and only those tabs
+     * are assigned transition effects if <code>animate</code> is true.  The
+     * effect registry is cleared by the transition before this method is
+     * called, so effects are not assigned for immediate layout.  Stamped
+     * tabs are displayed in a single TabStrip component.</p>
      */
-    private void layoutTabs() {
+    private void layoutTabs(boolean animate) {
+        TabEvents.LayoutTabs event = new TabEvents.LayoutTabs();
+        event.begin();
+        layoutVisibleTabs(animate);
+        if (event.shouldCommit()) {
+            event.visibleCount = vizEndIdx - vizStartIdx;
+            event.totalCount = model.size();
+            event.animated = animate;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Performs layout for visible tabs, as described for 
+     * <code>layoutTabs()</code>.
+     */
+    private void layoutVisibleTabs(boolean animate) {
         // Get index of first visible tab.
         int oldStartIdx = vizStartIdx;
         
-        // Remove all tabs and effects.
-        removeAll();
-        EffectsManager.clearAllEffects();
+        // Return tabs released by the previous layout to the pool.  These are
+        // not reused immediately so that outgoing tabs keep their content
+        // while the transition animates them.
+        tabPool.addAll(releasedTabs);
+        releasedTabs.clear();
+        
+        // Bind tab components to visible entries, and release components
+        // bound to entries that are no longer visible.  Stamped tabs are not
+        // bound to components.
+        List<TabModel.Entry> visibleEntries = getPendingVisibleTabs();
+        List<Tab> visibleTabs = bindTabs(stamped ? Collections.<TabModel.Entry>emptyList() : visibleEntries);
         
-        // Add visible tabs to container.
-        List<Tab> visibleTabs = getPendingVisibleTabs();
+        // Remove tabs that are no longer visible.
+        for (Tab tab : releasedTabs) {
+            remove(tab);
+        }
+        
+        // Display stamped tabs in the tab strip, followed by the "more"
+        // button if some tabs are not visible.
+        if (stamped) {
+            layoutTabStrip(visibleEntries);
+            return;
+        }
+        if (tabStrip != null && tabStrip.getParent() == this) {
+            remove(tabStrip);
+        }
+        
+        // Add tabs that are newly visible, and update constraints for tabs
+        // whose grid position or weight has changed.
+        List<Tab> appearingTabs = new ArrayList<Tab>();
+        int oldSize = shownTabs.size();
         for (int i = 0, size = visibleTabs.size(); i < size; i++) {
-        	Tab tab = visibleTabs.get(i);
-        	double weight = (i < (size - 1)) ? 0.0 : 1.0;
-        	add(tab, new GridBagConstraints(i, 0, 1, 1, weight, weight,
-        			GridBagConstraints.SOUTHWEST, GridBagConstraints.VERTICAL, new Insets(3,2,0,2), 0, 0));
+            Tab tab = visibleTabs.get(i);
+            boolean last = (i == size - 1);
+            tabConstraints.gridx = i;
+            tabConstraints.weightx = last ? 1.0 : 0.0;
+            tabConstraints.weighty = tabConstraints.weightx;
+            if (tab.getParent() != this) {
+                add(tab, tabConstraints);
+                appearingTabs.add(tab);
+            } else if (i >= oldSize || shownTabs.get(i) != tab || last != (i == oldSize - 1)) {
+                gridBag.setConstraints(tab, tabConstraints);
+            }
         }
+        shownTabs.clear();
+        shownTabs.addAll(visibleTabs);
         
         // Add "more" button if some tabs not visible.
-        if (visibleTabs.size() < getTabs().size()) {
-        	add(moreButton, new GridBagConstraints(visibleTabs.size(), 0, 1, 1, 0.0, 0.0,
-        			GridBagConstraints.EAST, GridBagConstraints.NONE, new Insets(0,0,0,0), 0, 0));
-        }
-        
-        // Set move-in effects for visible tabs.
-        for (Tab tab : visibleTabs) {
-            if (vizStartIdx == oldStartIdx) {
-                // When tab removed, tabs slide in from the right.
-                // When tab added, tabs slide in from the left.
-                if (tabRemoved) {
-                    EffectsManager.setEffect(tab, EffectsUtilities.createMoveInEffect(getWidth() - RIGHT_INSET, getHeight() / 2, true), TransitionType.APPEARING);
-                } else {
-                    EffectsManager.setEffect(tab, EffectsUtilities.createMoveInEffect(-MIN_TAB_WIDTH, 0, false), TransitionType.APPEARING);
-                }
-            } else if (vizStartIdx < oldStartIdx) {
-                // New tabs slide in from the left.
-                EffectsManager.setEffect(tab, EffectsUtilities.createMoveInEffect(-MIN_TAB_WIDTH, 0, false), TransitionType.APPEARING);
+        if (visibleTabs.size() < model.size()) {
+            moreConstraints.gridx = visibleTabs.size();
+            JButton button = getMoreButton();
+            if (button.getParent() != this) {
+                add(button, moreConstraints);
             } else {
-                // New tabs slide in from the right.
-                EffectsManager.setEffect(tab, EffectsUtilities.createMoveInEffect(getWidth() - RIGHT_INSET, getHeight() / 2, true), TransitionType.APPEARING);
+                gridBag.setConstraints(button, moreConstraints);
             }
+        } else if (moreButton != null && moreButton.getParent() == this) {
+            remove(moreButton);
+        }
+        
+        if (!animate) {
+            return;
         }
         
-        // Set move-out effects for all tabs.
-        for (Tab tab : tabList) {
+        // Set move-in effects for appearing tabs.  Size effects are replaced
+        // by fades when the quality governor has lowered the quality.
+        EffectsUtilities.EffectPool pool = getEffectPool();
+        EffectRegistry registry = getEffectRegistry();
+        boolean sizeEffects = (transitionQuality == QualityGovernor.Quality.FULL);
+        for (Tab tab : appearingTabs) {
+            // When tab removed, tabs slide in from the right.  When tab 
+            // added, tabs slide in from the left.  When the visible tabs
+            // shift, new tabs slide in from the side they shift from.
+            boolean fromRight = (vizStartIdx == oldStartIdx) ? tabRemoved : (vizStartIdx > oldStartIdx);
+            TransitionEffect effect = fromRight ?
+                    pool.getMoveInEffect(getWidth() - RIGHT_INSET, getHeight() / 2, sizeEffects) :
+                    pool.getMoveInEffect(-MIN_TAB_WIDTH, 0, false);
+            registry.setEffect(tab, effect, EffectRegistry.TransitionType.APPEARING);
+        }
+        
+        // Set move-out effects for released tabs.
+        for (Tab tab : releasedTabs) {
+            TransitionEffect effect;
             if (vizStartIdx <= oldStartIdx) {
                 // Old tabs slide out to the right.
-                EffectsManager.setEffect(tab, EffectsUtilities.createMoveOutEffect(getWidth() - RIGHT_INSET, getHeight() / 2, true), TransitionType.DISAPPEARING);
+                effect = pool.getMoveOutEffect(getWidth() - RIGHT_INSET, getHeight() / 2, sizeEffects);
             } else {
                 // Old tabs slide out to the left.
-                EffectsManager.setEffect(tab, EffectsUtilities.createMoveOutEffect(-MIN_TAB_WIDTH, 0, false), TransitionType.DISAPPEARING);
+                effect = pool.getMoveOutEffect(-MIN_TAB_WIDTH, 0, false);
             }
+            registry.setEffect(tab, effect, EffectRegistry.TransitionType.DISAPPEARING);
+        }
+        TabEvents.effectsRegistered(appearingTabs.size(), releasedTabs.size());
+    }
+    
+    /**
+     * Displays the specified entries in the tab strip, and adds the "more"
+     * button after it if some tabs are not visible.
+     */
+    private void layoutTabStrip(List<TabModel.Entry> visibleEntries) {
+        shownTabs.clear();
+        if (tabStrip == null) {
+            tabStrip = new TabStrip(model, createTab(), tabConstraints.insets);
+        }
+        tabStrip.setEntries(visibleEntries);
+        if (tabStrip.getParent() != this) {
+            add(tabStrip, stripConstraints);
+        }
+        
+        if (visibleEntries.size() < model.size()) {
+            moreConstraints.gridx = 1;
+            JButton button = getMoreButton();
+            if (button.getParent() != this) {
+                add(button, moreConstraints);
+            } else {
+                gridBag.setConstraints(button, moreConstraints);
+            }
+        } else if (moreButton != null && moreButton.getParent() == this) {
+            remove(moreButton);
         }
     }
     
@@ -227,108 +842,417 @@ public class AnimatedTabPanel extends JPanel implements TransitionTarget {
      * still keeping the selected tab in view.  If there is no selected tab,
      * this bumps everything to the left by one.</p>
      */
-    private List<Tab> getPendingVisibleTabs() {
-        // Calculate maximum visible tabs.
-        maxVisibleTabs = calculateVisibleTabCount();
-        
-        // Determine tabs to display.
-        List<Tab> tabs = getTabs();
-        List<Tab> visibleTabs;
-        if (maxVisibleTabs >= tabs.size()) {
-            vizStartIdx = 0;
-            visibleTabs = tabs;
-        } else {        
-            // Bump the start down from where it previously was
-            // if there is now more room to display more tabs,
-            // so that we display as many tabs as possible.
-            if (tabs.size() - vizStartIdx < maxVisibleTabs) {
-                vizStartIdx = tabs.size() - maxVisibleTabs;
-            }
-            visibleTabs = tabs.subList(vizStartIdx, vizStartIdx + maxVisibleTabs);
-            
-            // If we had a selection, make sure that we shift in the
-            // appropriate distance to keep that selection in view.
-            Tab selectedTab = getSelectedTab();
-            if (selectedTab != null && !visibleTabs.contains(selectedTab)) {
-                int selIdx = tabs.indexOf(selectedTab);
-                if (vizStartIdx > selIdx) { // We have to shift left
-                    vizStartIdx = selIdx;
-                } else { // We have to shift right
-                    vizStartIdx = selIdx - maxVisibleTabs + 1;
-                }
-                visibleTabs = tabs.subList(vizStartIdx, vizStartIdx + maxVisibleTabs);
-            }
+    private List<TabModel.Entry> getPendingVisibleTabs() {
+        long availWidth = calculateAvailableWidth(getSize().width);
+        vizStartIdx = calculateVisibleStart(availWidth);
+        vizEndIdx = calculateVisibleEnd(vizStartIdx, availWidth);
+        return model.getEntries().subList(vizStartIdx, vizEndIdx);
+    }
+    
+    /**
+     * Calculates the width available to display tabs for the specified 
+     * container width.  Returns -1 if all tabs fit in the container.
+     */
+    private long calculateAvailableWidth(int totalWidth) {
+        long availWidth = Math.max(totalWidth, MIN_TAB_WIDTH);
+        if (model.getTotalWidth(model.size()) <= availWidth) {
+            return -1;
         }
         
-        return visibleTabs;
+        // Leave room for "more" button.
+        return Math.max(totalWidth - getMoreButtonWidth() - RIGHT_INSET, MIN_TAB_WIDTH);
     }
     
     /**
-     * Calculates the number of visible tabs that will fit in the container.
-     * This is based on the current container width and the minimum tab 
-     * width.
+     * Calculates the index of the first visible tab for the specified 
+     * available width.  This takes O(log n) time using the total widths of
+     * tabs maintained by the model.
      */
-    private int calculateVisibleTabCount() {
-        int visibleTabCount;
+    private int calculateVisibleStart(long availWidth) {
+        if (availWidth < 0) {
+            return 0;
+        }
+        
+        // Start at the first tab if nothing was displayed before, which
+        // happens when several tabs are added in one batch.
+        int tabCount = model.size();
+        int startIdx = Math.min(Math.max(vizStartIdx, 0), tabCount - 1);
         
-        // Calculate available width and maximum visible tabs.
-        int totalWidth = getSize().width;
-        int availWidth = Math.max(totalWidth, MIN_TAB_WIDTH);
-        visibleTabCount = availWidth / (MIN_TAB_WIDTH + 4);
+        // Bump the start down from where it previously was if there is now
+        // more room to display more tabs, so that we display as many tabs as
+        // possible.
+        startIdx = Math.min(startIdx, calculateStartForEnd(tabCount, availWidth));
+        
+        // If we had a selection, make sure that we shift in the appropriate
+        // distance to keep that selection in view.
+        TabModel.Entry selectedEntry = model.getSelected();
+        int selIdx = (selectedEntry != null) ? model.indexOf(selectedEntry) : -1;
+        if (selIdx >= 0) {
+            if (selIdx < startIdx) { // We have to shift left
+                startIdx = selIdx;
+            } else if (selIdx >= calculateVisibleEnd(startIdx, availWidth)) { // We have to shift right
+                startIdx = calculateStartForEnd(selIdx + 1, availWidth);
+            }
+        }
         
-        // Adjust maximum tabs including "more" button if necessary.
-        if (visibleTabCount < getTabs().size()) {
-            int moreWidth = moreButton.getPreferredSize().width;
-            availWidth = Math.max(totalWidth - moreWidth - RIGHT_INSET, MIN_TAB_WIDTH);
-            visibleTabCount = availWidth / (MIN_TAB_WIDTH + 4);
+        return startIdx;
+    }
+    
+    /**
+     * Calculates the index after the last visible tab, when tabs are 
+     * displayed from the specified start index.  At least one tab is always
+     * visible.
+     */
+    private int calculateVisibleEnd(int startIdx, long availWidth) {
+        int tabCount = model.size();
+        if (availWidth < 0) {
+            return tabCount;
         }
         
-        return Math.max(visibleTabCount, 1);
+        int endIdx = model.countWithinWidth(model.getTotalWidth(startIdx) + availWidth);
+        return Math.min(Math.max(endIdx, startIdx + 1), tabCount);
     }
     
     /**
-     * Selects the specified tab.
+     * Calculates the smallest start index such that the tabs up to the 
+     * specified end index fit in the available width.
      */
-    private void setSelectedTab(Tab tab) {
-        if (selectedTab != null) {
-            selectedTab.setSelected(false);
+    private int calculateStartForEnd(int endIdx, long availWidth) {
+        long excessWidth = model.getTotalWidth(endIdx) - availWidth;
+        if (excessWidth <= 0) {
+            return 0;
         }
         
-        selectedTab = tab;
+        // Find the first tab whose preceding tabs cover the excess width.
+        int startIdx = model.countWithinWidth(excessWidth - 1) + 1;
+        return Math.min(startIdx, endIdx - 1);
+    }
+    
+    /**
+     * Binds tab components to the specified visible entries, and returns the
+     * components in the same order.  Components bound to entries that are no
+     * longer visible are unbound and held for release by the next layout.
+     */
+    private List<Tab> bindTabs(List<TabModel.Entry> visibleEntries) {
+        // Release tabs for entries that are no longer visible.  Entries are
+        // marked as visible by temporarily clearing their bound tab.
+        List<Tab> visibleTabs = new ArrayList<Tab>(visibleEntries.size());
+        for (TabModel.Entry entry : visibleEntries) {
+            visibleTabs.add(entry.tab);
+            entry.tab = null;
+        }
+        for (TabModel.Entry entry : boundEntries) {
+            if (entry.tab != null) {
+                entry.tab.bind(null);
+                releasedTabs.add(entry.tab);
+                entry.tab = null;
+            }
+        }
+        boundEntries.clear();
+        
+        // Bind visible entries, reusing existing or pooled components.
+        for (int i = 0, size = visibleEntries.size(); i < size; i++) {
+            TabModel.Entry entry = visibleEntries.get(i);
+            Tab tab = visibleTabs.get(i);
+            if (tab == null) {
+                tab = tabPool.isEmpty() ? createTab() : tabPool.pop();
+                tab.bind(entry);
+                sizeTab(tab);
+            }
+            entry.tab = tab;
+            boundEntries.add(entry);
+            visibleTabs.set(i, tab);
+        }
+        
+        return visibleTabs;
+    }
+    
+    /**
+     * Creates a new tab component.
+     */
+    private Tab createTab() {
+        Tab tab = new Tab(tabSelectAction, tabRemoveAction);
         
-        if (selectedTab != null) {
-            selectedTab.setSelected(true);
+        // Set minimum and maximum widths.
+        tab.setMinimumSize(new Dimension(MIN_TAB_WIDTH, tab.getMinimumSize().height));
+        tab.setMaximumSize(new Dimension(MAX_TAB_WIDTH, tab.getMaximumSize().height));
+        return tab;
+    }
+    
+    /**
+     * Sets the preferred size of the specified tab to the width of its 
+     * entry.
+     */
+    private void sizeTab(Tab tab) {
+        tab.setPreferredSize(null);
+        int tabWidth = model.getWidth(tab.getEntry()) - TAB_INSETS_WIDTH;
+        tab.setPreferredSize(new Dimension(tabWidth, tab.getPreferredSize().height));
+    }
+    
+    /**
+     * Returns the display width of a tab with the specified name, including
+     * the space between tabs.  This is limited by the minimum and maximum tab
+     * widths.
+     */
+    private int measureTabWidth(String name) {
+        if (measureTab == null) {
+            measureTab = createTab();
         }
+        int tabWidth = Math.min(Math.max(measureTab.getPreferredWidth(name), MIN_TAB_WIDTH), MAX_TAB_WIDTH);
+        return tabWidth + TAB_INSETS_WIDTH;
     }
     
     /**
-     * Returns an unmodifiable list of all tabs.
+     * Performs tab layout immediately without animation.
      */
-    private List<Tab> getTabs() {
-        return Collections.unmodifiableList(tabList);
+    private void updateLayout() {
+        layoutTabs(false);
+        revalidate();
+        repaint();
     }
     
     /**
-     * Creates a popup menu listing the available tabs.
+     * Selects the specified entry, and updates its tab component if bound.
      */
-    private JPopupMenu createTabListPopup() {
-        // Create drop-down list of tab names to select
-        JPopupMenu popupMenu = new JPopupMenu();
+    private void setSelectedEntry(TabModel.Entry entry) {
+        TabModel.Entry oldEntry = model.getSelected();
+        model.setSelected(entry);
+        TabEvents.tabSelected(model, entry);
+        
+        // Move the entry to the front of the history, unless cycling through
+        // the history, which would otherwise only alternate between two tabs.
+        if (!cycling) {
+            cycleEntry = null;
+            if (entry != null) {
+                model.touch(entry);
+            }
+        }
         
-        for (Tab tab : tabList) {
-            popupMenu.add(new JMenuItem(tab.createSelectAction()));
+        if (oldEntry != null && oldEntry.tab != null) {
+            oldEntry.tab.setSelected(false);
+        }
+        if (entry != null && entry.tab != null) {
+            entry.tab.setSelected(true);
+        }
+    }
+    
+    /**
+     * Returns the popup listing the available tabs.  The popup is created 
+     * once and reused, and reads the tab names from the model only when 
+     * they are displayed.
+     */
+    private TabListPopup getTabListPopup() {
+        if (tabListPopup == null) {
+            tabListPopup = new TabListPopup(model, tabSelectAction);
+        }
+        return tabListPopup;
+    }
+    
+    /**
+     * Returns the "more" button to list all tabs.  The button is created
+     * when tabs first overflow the container.
+     */
+    private JButton getMoreButton() {
+        if (moreButton == null) {
+            moreButton = new JButton(new MoreAction());
+            
+            // Use the measured width, unless the look and feel needs more.
+            Dimension size = moreButton.getPreferredSize();
+            moreButtonWidth = Math.max(getMoreButtonWidth(), size.width);
+            moreButton.setPreferredSize(new Dimension(moreButtonWidth, size.height));
+        }
+        return moreButton;
+    }
+    
+    /**
+     * Returns the width of the "more" button.  Until the button is created,
+     * this is measured from its text, so that the button is only created
+     * when it is shown.
+     */
+    private int getMoreButtonWidth() {
+        if (moreButtonWidth < 0) {
+            Font font = UIManager.getFont("Button.font");
+            FontMetrics metrics = getFontMetrics((font != null) ? font : getFont());
+            moreButtonWidth = SwingUtilities.computeStringWidth(metrics, MORE_TEXT) + MORE_INSETS_WIDTH;
+        }
+        return moreButtonWidth;
+    }
+    
+    /**
+     * Returns the pool of transition effects, which is created when effects
+     * are first assigned.  The pool is released by the transition when it 
+     * clears the effect registry, after the effects have been cleaned up.
+     */
+    EffectsUtilities.EffectPool getEffectPool() {
+        if (effectPool == null) {
+            effectPool = new EffectsUtilities.EffectPool();
+            getEffectRegistry().setEffectPool(effectPool);
+        }
+        return effectPool;
+    }
+    
+    /**
+     * Returns the registry of effects for the next transition, which is
+     * created when effects are first assigned.
+     */
+    private EffectRegistry getEffectRegistry() {
+        if (effectRegistry == null) {
+            effectRegistry = new EffectRegistry();
+        }
+        return effectRegistry;
+    }
+    
+    /**
+     * Returns the transition for this container.  The animator and 
+     * transition are created when the first animation starts.
+     */
+    ContainerTransition getTransition() {
+        if (transition == null) {
+            animator = new Animator(governor.getDuration(QualityGovernor.Quality.FULL));
+            animator.setTimer(new FrameTimingSource(metrics, governor));
+            transition = new ContainerTransition(this, this, animator, getEffectRegistry());
+        }
+        return transition;
+    }
+    
+    /**
+     * Overrides superclass method to paint the current frame of a running
+     * transition in place of the tab components, and record the time taken
+     * in the transition metrics.
+     */
+    @Override
+    protected void paintChildren(Graphics g) {
+        if (transition != null && transition.isRunning()) {
+            long start = System.nanoTime();
+            transition.paint(g);
+            metrics.recordPaint(System.nanoTime() - start);
+        } else {
+            super.paintChildren(g);
+        }
+    }
+    
+    /**
+     * Starts loading and initializing the transition classes on a low 
+     * priority background thread, so that the first animation does not wait
+     * for them.  This may be called before the first frame is displayed, and
+     * has no effect after the first call.
+     */
+    public static void warmUpTransitions() {
+        if (warmUpStarted.getAndSet(true)) {
+            return;
         }
         
-        return popupMenu;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                // Effects, animators and images are not attached to 
+                // components, so they may be created off the event dispatch
+                // thread.  Other classes are only loaded and initialized.
+                EffectsUtilities.EffectPool pool = new EffectsUtilities.EffectPool();
+                pool.getMoveInEffect(0, 0, true);
+                pool.getMoveOutEffect(0, 0, true);
+                pool.releaseAll();
+                new Animator(250).setTimer(new FrameTimingSource(new TransitionMetrics()));
+                new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics().dispose();
+                
+                // Load and initialize the remaining classes.  Warming up is
+                // only an optimization, so a missing class is skipped; the
+                // startup benchmark shows when warm-up stops helping.
+                ClassLoader loader = AnimatedTabPanel.class.getClassLoader();
+                for (String className : WARM_UP_CLASSES) {
+                    try {
+                        Class.forName(className, true, loader);
+                    } catch (ClassNotFoundException ex) {
+                        continue;
+                    }
+                }
+            }
+        }, "Transition warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
     }
     
     /**
      * Starts the transition animation.  The specified indicator should be
-     * true only if a tab is removed from the list.
+     * true only if a tab is removed from the list.  Within a batch, the
+     * animation is deferred until the batch completes.  The tabs are laid
+     * out immediately if the container is not showing, or if the quality
+     * governor has switched to instant layout.
      */
     private void startAnimation(boolean tabRemoved) {
+        if (batchDepth > 0) {
+            batchChanged = true;
+            batchRemoved |= tabRemoved;
+            return;
+        }
+        
         this.tabRemoved = tabRemoved;
-        transition.start();
+        if (canAnimate()) {
+            long start = System.nanoTime();
+            long now = (virtualClock != null) ? virtualClock.getTime() : start;
+            governor.recordOperation(now);
+            transitionQuality = governor.getQuality(now);
+            if (transitionQuality != QualityGovernor.Quality.INSTANT) {
+                int duration = governor.getDuration(transitionQuality);
+                boolean retargeted = retargeting && (transition != null) && transition.isRunning();
+                startTransition(duration);
+                long startTime = System.nanoTime() - start;
+                metrics.recordTransitionStart(startTime);
+                TabEvents.transitionStart(transitionQuality.name(), duration, retargeted, startTime);
+                return;
+            }
+        }
+        
+        // Finish any running transition before laying out immediately.
+        stopTransition();
+        updateLayout();
+    }
+    
+    /**
+     * Stops the running transition, if any, so its components end at their
+     * final bounds.
+     */
+    private void stopTransition() {
+        if (virtualClock != null) {
+            virtualClock.stop();
+        }
+        if (animator != null && animator.isRunning()) {
+            animator.stop();
+        }
+    }
+    
+    /**
+     * Returns true if tab changes should be animated.  The container must be
+     * showing, otherwise the transition would only delay the layout, unless
+     * transitions are driven by a virtual clock.  Stamped tabs are not
+     * animated.
+     */
+    boolean canAnimate() {
+        return animated && !stamped && (virtualClock != null || isShowing());
+    }
+    
+    /**
+     * Starts the transition with the specified duration in milliseconds.
+     * The transition calls <code>setupNextScreen()</code> when it starts, or
+     * when a running transition is retargeted.
+     */
+    void startTransition(int duration) {
+        ContainerTransition containerTransition = getTransition();
+        if (retargeting && containerTransition.isRunning()) {
+            containerTransition.retarget(duration);
+            if (virtualClock != null) {
+                virtualClock.restart(duration);
+            }
+            return;
+        }
+        
+        if (virtualClock != null) {
+            containerTransition.setDuration(duration);
+            virtualClock.start(containerTransition, duration);
+            return;
+        }
+        containerTransition.start(duration);
     }
     
     /**
@@ -337,13 +1261,51 @@ public class AnimatedTabPanel extends JPanel implements TransitionTarget {
     private class MoreAction extends AbstractAction {
 
         public MoreAction() {
-            super("More");
+            super(MORE_TEXT);
+        }
+        
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JButton button = getMoreButton();
+            getTabListPopup().show(button, 0, button.getHeight());
+        }
+    }
+    
+    /**
+     * Action to show quick switcher.
+     */
+    private class QuickSwitchAction extends AbstractAction {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            showQuickSwitcher();
+        }
+    }
+    
+    /**
+     * Action to cycle through recently used tabs.
+     */
+    private class CycleRecentAction extends AbstractAction {
+        private final boolean forward;
+
+        public CycleRecentAction(boolean forward) {
+            this.forward = forward;
         }
         
         @Override
         public void actionPerformed(ActionEvent e) {
-            JPopupMenu popupMenu = createTabListPopup();
-            popupMenu.show(moreButton, 0, moreButton.getHeight());
+            cycleRecentTabs(forward);
+        }
+    }
+    
+    /**
+     * Action to end cycling through recently used tabs.
+     */
+    private class EndCycleRecentAction extends AbstractAction {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            endRecentCycle();
         }
     }
     
@@ -363,18 +1325,19 @@ public class AnimatedTabPanel extends JPanel implements TransitionTarget {
     }
     
     /**
-     * Action to select tab.
+     * Action to select tab.  The entry is obtained from the source tab or
+     * tab chooser, and is ignored if it has since been removed.
      */
     private class SelectAction extends AbstractAction {
 
-        public SelectAction(String name) {
-            super(name);
-        }
-        
         @Override
         public void actionPerformed(ActionEvent e) {
-            setSelectedTab((Tab) e.getSource());
-            startAnimation(false);
+            Object source = e.getSource();
+            TabModel.Entry target = (source instanceof TabChooser) ?
+                    ((TabChooser) source).getChosenEntry() : ((Tab) source).getEntry();
+            if (target != null && model.indexOf(target) >= 0) {
+                selectEntry(target);
+            }
         }
     }
 }
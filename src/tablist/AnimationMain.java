@@ -3,18 +3,31 @@ package tablist;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.KeyboardFocusManager;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 /**
  * Application to demonstrate animated tabs in a horizontal panel.
  */
 public class AnimationMain {
+    
+    /** File used to save the tabs between runs. */
+    private static final File SESSION_FILE = new File(System.getProperty("user.home"), ".tablist-session");
 
     JPanel windowPanel = new JPanel();
     
@@ -51,6 +64,34 @@ public class AnimationMain {
         windowPanel.add(contentPanel, BorderLayout.CENTER);
         topPanel.add(addButton, BorderLayout.WEST);
         topPanel.add(tabPanel.getComponent(), BorderLayout.CENTER);
+        
+        // Handle tab shortcuts anywhere in the window content.
+        tabPanel.installKeyBindings(windowPanel);
+    }
+    
+    /**
+     * Restores the tabs saved by the previous run, if any.
+     */
+    private void restoreSession() {
+        if (SESSION_FILE.exists()) {
+            try {
+                TabSession.restore(tabPanel, SESSION_FILE);
+                tabCount = tabPanel.getModel().size();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Saves the tabs for the next run.
+     */
+    private void saveSession() {
+        try {
+            TabSession.save(tabPanel, SESSION_FILE);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
     }
     
     /**
@@ -59,6 +100,19 @@ public class AnimationMain {
     private void display() {
         JFrame frame = new JFrame("Animated Tab List");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveSession();
+            }
+        });
+        
+        // Remove Ctrl+Tab from the focus traversal keys, so that it cycles
+        // through recently used tabs.
+        frame.setFocusTraversalKeys(KeyboardFocusManager.FORWARD_TRAVERSAL_KEYS,
+                Collections.singleton(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, 0)));
+        frame.setFocusTraversalKeys(KeyboardFocusManager.BACKWARD_TRAVERSAL_KEYS,
+                Collections.singleton(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, InputEvent.SHIFT_DOWN_MASK)));
         
         frame.add(windowPanel);
         frame.pack();
@@ -71,13 +125,36 @@ public class AnimationMain {
      * @param args
      */
     public static void main(String[] args) {
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+        // Load transition classes in the background while the first frame is
+        // created.  The first frame is displayed without animation.
+        AnimatedTabPanel.warmUpTransitions();
         
-        AnimationMain demo = new AnimationMain();
-        demo.display();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                
+                final AnimationMain demo = new AnimationMain();
+                demo.restoreSession();
+                demo.display();
+                
+                // Expose transition metrics through JMX once the window is
+                // displayed.
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            demo.tabPanel.getMetrics().registerMBean("demo");
+                        } catch (Exception ex) {
+                            ex.printStackTrace();
+                        }
+                    }
+                });
+            }
+        });
     }
 }
@@ -0,0 +1,122 @@
+package tablist;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+
+/**
+ * Pulse that drives the animations of many containers from a single Swing
+ * timer.  On each pulse, every active FrameTimingSource receives its timing
+ * event within the same event dispatch task.  Transitions in different
+ * containers therefore advance in phase, and the repaints they request are
+ * coalesced by the RepaintManager into one paint per frame.
+ *
+ * <p>The timer runs only while at least one source is active, at the
+ * shortest resolution requested by the active sources.  All methods must be
+ * called on the event dispatch thread.</p>
+ */
+public class AnimationPulse {
+    private static final int DEFAULT_RESOLUTION = 20;
+
+    private static final AnimationPulse shared = new AnimationPulse();
+
+    private final List<FrameTimingSource> sources = new ArrayList<FrameTimingSource>();
+    private final Timer timer;
+
+    private FrameTimingSource[] pulseSources = new FrameTimingSource[0];
+
+    /**
+     * Returns the pulse shared by all containers.
+     */
+    public static AnimationPulse getShared() {
+        return shared;
+    }
+
+    /**
+     * Constructs an AnimationPulse with no active sources.
+     */
+    public AnimationPulse() {
+        timer = new Timer(DEFAULT_RESOLUTION, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pulse();
+            }
+        });
+        timer.setInitialDelay(0);
+    }
+
+    /**
+     * Returns the number of active sources.
+     */
+    public int getActiveCount() {
+        return sources.size();
+    }
+
+    /**
+     * Returns true if the timer is running.
+     */
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    /**
+     * Adds the specified source, which receives timing events starting with
+     * the next pulse.  The timer is started if it is not running.
+     */
+    void add(FrameTimingSource source) {
+        if (!sources.contains(source)) {
+            sources.add(source);
+            updateResolution();
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Removes the specified source.  The timer is stopped when no source is
+     * active.
+     */
+    void remove(FrameTimingSource source) {
+        if (sources.remove(source)) {
+            if (sources.isEmpty()) {
+                timer.stop();
+            } else {
+                updateResolution();
+            }
+        }
+    }
+
+    /**
+     * Sets the timer delay to the shortest resolution of the active sources.
+     */
+    void updateResolution() {
+        int resolution = Integer.MAX_VALUE;
+        for (FrameTimingSource source : sources) {
+            resolution = Math.min(resolution, source.getResolution());
+        }
+        timer.setDelay(sources.isEmpty() ? DEFAULT_RESOLUTION : Math.max(resolution, 1));
+    }
+
+    /**
+     * Sends a timing event to every active source.  Sources may be added or
+     * removed by the timing events, so the active sources are copied first.
+     */
+    private void pulse() {
+        int count = sources.size();
+        if (pulseSources.length < count) {
+            pulseSources = new FrameTimingSource[count];
+        }
+        sources.toArray(pulseSources);
+
+        long now = System.nanoTime();
+        int resolution = timer.getDelay();
+        for (int i = 0; i < count; i++) {
+            pulseSources[i].pulse(now, resolution);
+            pulseSources[i] = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tablist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Effect that combines several effects.  The child effects share the start
+ * and end bounds of the composite, and vary its state, so the component is
+ * painted once with all effects applied.
+ */
+public class CompositeEffect extends TransitionEffect {
+    private final List<TransitionEffect> effects = new ArrayList<TransitionEffect>();
+
+    /**
+     * Adds the specified effect.
+     */
+    public void addEffect(TransitionEffect effect) {
+        effects.add(effect);
+    }
+
+    /**
+     * Initializes the child effects to vary this effect, or the parent
+     * effect if not null.
+     */
+    @Override
+    public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+        super.init(transition, parentEffect);
+        TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+        for (int i = 0, size = effects.size(); i < size; i++) {
+            TransitionEffect effect = effects.get(i);
+            effect.setStart(getStart());
+            effect.setEnd(getEnd());
+            effect.init(transition, targetEffect);
+        }
+    }
+
+    @Override
+    public void cleanup(ContainerTransition transition) {
+        for (int i = 0, size = effects.size(); i < size; i++) {
+            effects.get(i).cleanup(transition);
+        }
+        super.cleanup(transition);
+    }
+}
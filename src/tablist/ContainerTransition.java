@@ -0,0 +1,778 @@
+package tablist;
+
+import java.awt.AlphaComposite;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+
+import org.jdesktop.animation.timing.Animator;
+import org.jdesktop.animation.timing.TimingTarget;
+import org.jdesktop.animation.timing.TimingTargetAdapter;
+
+/**
+ * Transition that animates the children of a container from the current
+ * screen to the next one.  This replaces the ScreenTransition of the
+ * Animated Transitions library, and follows the same contract: when the
+ * animator starts, the children are captured, <code>setupNextScreen()</code>
+ * is called on the target, the container is laid out, and the children are
+ * captured again.  Each component then animates between its start and end
+ * bounds using the effect assigned in the registry, or a default effect.
+ *
+ * <p>The children are captured into back buffers the size of the
+ * container, which are reused by later transitions and reallocated only
+ * when the container grows.  While the transition runs, the container must
+ * call <code>paint()</code> in place of painting its children, and only the
+ * region covered by animating components is repainted on each frame.  No
+ * screen device is needed, so transitions also run headless.</p>
+ *
+ * <p>A running transition may be redirected to a new next screen using
+ * <code>retarget()</code>.  The current screen is not captured again, and
+ * components continue from their current bounds and velocity.  All methods
+ * must be called on the event dispatch thread.</p>
+ */
+public class ContainerTransition extends TimingTargetAdapter {
+    private static final int MAX_BUFFERS = 4;
+
+    private final JComponent container;
+    private final TransitionTarget target;
+    private final Animator animator;
+    private final EffectRegistry effectRegistry;
+
+    private final List<TimingTarget> targets = new ArrayList<TimingTarget>();
+    private final List<BufferedImage> buffers = new ArrayList<BufferedImage>();
+    private final List<Item> freeItems = new ArrayList<Item>();
+    private final Map<Component, Rectangle> startBounds = new IdentityHashMap<Component, Rectangle>();
+    private final Map<Component, Item> retargetItems = new IdentityHashMap<Component, Item>();
+    private final DefaultEffects moveEffects = new DefaultEffects() {
+        @Override
+        protected TransitionEffect create() {
+            return new EffectsUtilities.Move();
+        }
+    };
+    private final DefaultEffects fadeInEffects = new DefaultEffects() {
+        @Override
+        protected TransitionEffect create() {
+            return new EffectsUtilities.FadeIn();
+        }
+    };
+    private final DefaultEffects fadeOutEffects = new DefaultEffects() {
+        @Override
+        protected TransitionEffect create() {
+            return new EffectsUtilities.FadeOut();
+        }
+    };
+    private final DefaultEffects retargetEffects = new DefaultEffects() {
+        @Override
+        protected TransitionEffect create() {
+            return new EffectsUtilities.Retarget();
+        }
+    };
+    private final Rectangle frameRegion = new Rectangle();
+    private final Rectangle dirtyRegion = new Rectangle();
+
+    private List<Item> items = new ArrayList<Item>();
+    private List<Item> oldItems = new ArrayList<Item>();
+    private TimingTarget[] frameTargets = new TimingTarget[0];
+    private BufferedImage startBuffer;
+    private BufferedImage endBuffer;
+    private int duration = 250;
+    private float fraction;
+    private float previousFraction;
+    private boolean running;
+    private boolean restarting;
+    private long captureCount;
+    private TabEvents.TransitionEnd endEvent;
+
+    /**
+     * Constructs a ContainerTransition for the specified container.  The
+     * transition adds itself as a target of the animator, and uses the
+     * effects assigned in the specified registry.
+     */
+    public ContainerTransition(JComponent container, TransitionTarget target,
+            Animator animator, EffectRegistry effectRegistry) {
+        this.container = container;
+        this.target = target;
+        this.animator = animator;
+        this.effectRegistry = effectRegistry;
+        animator.addTarget(this);
+    }
+
+    /**
+     * Starts the transition with the specified duration in milliseconds.  A
+     * running transition is stopped first, so its components end at their
+     * final bounds.
+     */
+    public void start(int duration) {
+        if (animator.isRunning()) {
+            animator.stop();
+        }
+        setDuration(duration);
+        if (animator.getDuration() != duration) {
+            animator.setDuration(duration);
+        }
+        animator.start();
+    }
+
+    /**
+     * Sets the duration of the transition in milliseconds.  This is used to
+     * carry the velocity of components over when the transition is
+     * retargeted, and must be set if the transition is not started by
+     * <code>start()</code>.
+     */
+    public void setDuration(int duration) {
+        this.duration = Math.max(duration, 1);
+    }
+
+    /**
+     * Returns true if the transition is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the number of components painted into back buffers since this
+     * transition was created.
+     */
+    long getCaptureCount() {
+        return captureCount;
+    }
+
+    /**
+     * Adds a timing target that receives the fraction of each frame before
+     * the frame is painted.  This is called by effects when initialized.
+     */
+    public void addTarget(TimingTarget timingTarget) {
+        targets.add(timingTarget);
+    }
+
+    /**
+     * Removes a timing target added by an effect.
+     */
+    public void removeTarget(TimingTarget timingTarget) {
+        targets.remove(timingTarget);
+    }
+
+    /**
+     * Captures the current screen, sets up the next screen, and initializes
+     * the effects of all animating components.
+     */
+    @Override
+    public void begin() {
+        if (restarting) {
+            return;
+        }
+        clear();
+        TabEvents.TransitionEnd event = new TabEvents.TransitionEnd();
+        if (event.isEnabled()) {
+            event.begin();
+            endEvent = event;
+        }
+
+        // Capture the current screen.
+        startBuffer = obtainBuffer();
+        Component[] children = container.getComponents();
+        for (Component child : children) {
+            if (child.isVisible()) {
+                startBounds.put(child, child.getBounds());
+            }
+        }
+        paintChildren(startBuffer, children);
+
+        // Set up and capture the next screen.  The registry was cleared
+        // above, so only effects assigned by the target are used.
+        target.setupNextScreen();
+        layout(container);
+        endBuffer = obtainBuffer();
+        children = container.getComponents();
+        paintChildren(endBuffer, children);
+
+        // Assign effects to components that appear or change bounds.
+        for (Component child : children) {
+            if (!child.isVisible()) {
+                continue;
+            }
+            Rectangle end = child.getBounds();
+            Rectangle start = startBounds.remove(child);
+            if (start == null) {
+                TransitionEffect effect = effectRegistry.getEffect(child, EffectRegistry.TransitionType.APPEARING);
+                addItem(child, (effect != null) ? effect : fadeInEffects.obtain(), end, end, endBuffer, end);
+            } else if (!start.equals(end)) {
+                TransitionEffect effect = effectRegistry.getEffect(child, EffectRegistry.TransitionType.CHANGING);
+                addItem(child, (effect != null) ? effect : moveEffects.obtain(), start, end, endBuffer, end);
+            } else {
+                addItem(child, null, end, end, endBuffer, end);
+            }
+        }
+
+        // Assign effects to components that disappear.
+        for (Map.Entry<Component, Rectangle> entry : startBounds.entrySet()) {
+            TransitionEffect effect = effectRegistry.getEffect(entry.getKey(), EffectRegistry.TransitionType.DISAPPEARING);
+            Rectangle start = entry.getValue();
+            addItem(entry.getKey(), (effect != null) ? effect : fadeOutEffects.obtain(),
+                    start, start, startBuffer, start).disappearing = true;
+        }
+        startBounds.clear();
+
+        startSegment();
+    }
+
+    /**
+     * Redirects the running transition to a new next screen, which takes
+     * the specified duration in milliseconds.  The target sets up the next
+     * screen, which is laid out and captured, but the current screen is not
+     * captured again.  Components that remain move from their current bounds
+     * and velocity to their new end bounds, and components that are removed
+     * disappear from their current bounds.  Components that were already
+     * disappearing keep moving while they fade out.
+     *
+     * <p>If the transition is not running, it is started instead.</p>
+     */
+    public void retarget(int newDuration) {
+        if (!running) {
+            start(newDuration);
+            return;
+        }
+        if (endEvent != null) {
+            endEvent.retargetCount++;
+        }
+
+        // Record the state of every component, with its velocity in pixels
+        // per millisecond over the last frame.
+        float elapsed = (fraction - previousFraction) * duration;
+        List<Item> swap = oldItems;
+        oldItems = items;
+        items = swap;
+        for (int i = 0, size = oldItems.size(); i < size; i++) {
+            Item item = oldItems.get(i);
+            item.captureState(elapsed);
+            retargetItems.put(item.component, item);
+        }
+
+        // Clean up the effects before the target assigns effects again,
+        // since it may reuse them.
+        for (int i = 0, size = oldItems.size(); i < size; i++) {
+            Item item = oldItems.get(i);
+            if (item.effect != null) {
+                item.effect.cleanup(this);
+                item.effect = null;
+            }
+        }
+        targets.clear();
+        effectRegistry.clear();
+        releaseDefaultEffects();
+
+        // Set up and capture the next screen.  Buffers that hold images of
+        // components that may still be painted are not reused.
+        startBuffer = null;
+        endBuffer = null;
+        target.setupNextScreen();
+        layout(container);
+        endBuffer = obtainBuffer();
+        Component[] children = container.getComponents();
+        paintChildren(endBuffer, children);
+
+        for (Component child : children) {
+            if (!child.isVisible()) {
+                continue;
+            }
+            Rectangle end = child.getBounds();
+            Item old = retargetItems.remove(child);
+            if (old == null || old.disappearing) {
+                TransitionEffect effect = effectRegistry.getEffect(child, EffectRegistry.TransitionType.APPEARING);
+                addItem(child, (effect != null) ? effect : fadeInEffects.obtain(), end, end, endBuffer, end);
+            } else if (old.isAtRest(end)) {
+                addItem(child, null, end, end, endBuffer, end);
+            } else {
+                EffectsUtilities.Retarget effect = (EffectsUtilities.Retarget) retargetEffects.obtain();
+                effect.setVelocity(old.velocityX * newDuration, old.velocityY * newDuration,
+                        old.velocityWidth * newDuration, old.velocityHeight * newDuration);
+                effect.setFade(old.opacity, 1.0f);
+                addItem(child, effect, old.bounds, end, endBuffer, end);
+            }
+        }
+
+        // Components that are no longer children disappear from their
+        // current bounds, using their last image.  Images evicted from the
+        // buffers can no longer be painted.
+        for (Item old : retargetItems.values()) {
+            if (old.image == null) {
+                continue;
+            }
+            TransitionEffect effect;
+            Rectangle end = old.bounds;
+            if (old.disappearing) {
+                EffectsUtilities.Retarget retarget = (EffectsUtilities.Retarget) retargetEffects.obtain();
+                float vx = old.velocityX * newDuration;
+                float vy = old.velocityY * newDuration;
+                float vw = old.velocityWidth * newDuration;
+                float vh = old.velocityHeight * newDuration;
+                retarget.setVelocity(vx, vy, vw, vh);
+                retarget.setFade(old.opacity, 0.0f);
+                end = new Rectangle(Math.round(end.x + vx / 2), Math.round(end.y + vy / 2),
+                        Math.max(Math.round(end.width + vw / 2), 0), Math.max(Math.round(end.height + vh / 2), 0));
+                effect = retarget;
+            } else {
+                effect = effectRegistry.getEffect(old.component, EffectRegistry.TransitionType.DISAPPEARING);
+                if (effect == null) {
+                    effect = fadeOutEffects.obtain();
+                }
+            }
+            addItem(old.component, effect, old.bounds, end, old.image, old.source).disappearing = true;
+        }
+        retargetItems.clear();
+        for (int i = 0, size = oldItems.size(); i < size; i++) {
+            oldItems.get(i).clear();
+        }
+        freeItems.addAll(oldItems);
+        oldItems.clear();
+
+        // Restart the timing without ending or beginning the transition.
+        setDuration(newDuration);
+        if (animator.isRunning()) {
+            restarting = true;
+            try {
+                animator.stop();
+                animator.setDuration(newDuration);
+                animator.start();
+            } finally {
+                restarting = false;
+            }
+        }
+        startSegment();
+    }
+
+    /**
+     * Updates the effects for the specified fraction, and repaints the
+     * region covered by animating components on this frame and the last.
+     */
+    @Override
+    public void timingEvent(float fraction) {
+        if (!running) {
+            return;
+        }
+
+        previousFraction = this.fraction;
+        this.fraction = fraction;
+        if (endEvent != null) {
+            endEvent.frameCount++;
+        }
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            if (item.effect != null) {
+                item.previousBounds.setBounds(item.effect.getBounds());
+            }
+        }
+        updateEffects(fraction);
+
+        frameRegion.setBounds(0, 0, 0, 0);
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            TransitionEffect effect = item.effect;
+            if (effect == null) {
+                continue;
+            }
+            Rectangle bounds = effect.getBounds();
+            if (!bounds.equals(item.previousBounds)) {
+                addRegion(item.previousBounds);
+                addRegion(bounds);
+            } else if (effect.getOpacity() != item.previousOpacity) {
+                addRegion(bounds);
+            }
+            item.previousOpacity = effect.getOpacity();
+        }
+
+        // Expand by one pixel to cover rounding and antialiasing, and clip
+        // to the container.
+        if (frameRegion.isEmpty()) {
+            dirtyRegion.setBounds(0, 0, 0, 0);
+            return;
+        }
+        int x1 = Math.max(frameRegion.x - 1, 0);
+        int y1 = Math.max(frameRegion.y - 1, 0);
+        int x2 = Math.min(frameRegion.x + frameRegion.width + 1, container.getWidth());
+        int y2 = Math.min(frameRegion.y + frameRegion.height + 1, container.getHeight());
+        dirtyRegion.setBounds(x1, y1, Math.max(x2 - x1, 0), Math.max(y2 - y1, 0));
+        if (!dirtyRegion.isEmpty()) {
+            container.repaint(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
+        }
+    }
+
+    /**
+     * Cleans up the effects, and repaints the container with its children.
+     */
+    @Override
+    public void end() {
+        if (restarting) {
+            return;
+        }
+        clear();
+        container.repaint();
+        if (endEvent != null) {
+            endEvent.commit();
+            endEvent = null;
+        }
+    }
+
+    /**
+     * Returns the region repainted by the last frame, in container
+     * coordinates.  The returned rectangle must not be modified.
+     */
+    public Rectangle getDirtyRegion() {
+        return dirtyRegion;
+    }
+
+    /**
+     * Paints the current frame of the transition.  Components that do not
+     * move are copied from their buffer, and animating components are
+     * painted by their effects.
+     */
+    public void paint(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            for (int i = 0, size = items.size(); i < size; i++) {
+                Item item = items.get(i);
+                if (item.effect == null) {
+                    Rectangle r = item.bounds;
+                    Rectangle s = item.source;
+                    g2d.drawImage(item.image, r.x, r.y, r.x + r.width, r.y + r.height,
+                            s.x, s.y, s.x + s.width, s.y + s.height, null);
+                }
+            }
+            for (int i = 0, size = items.size(); i < size; i++) {
+                TransitionEffect effect = items.get(i).effect;
+                if (effect != null) {
+                    effect.paint(g2d);
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Adds a component to this transition with the specified effect, or
+     * null if it does not move, and sets the start and end bounds and the
+     * image of the effect.
+     */
+    private Item addItem(Component component, TransitionEffect effect, Rectangle start, Rectangle end,
+            Image image, Rectangle source) {
+        Item item = freeItems.isEmpty() ? new Item() : freeItems.remove(freeItems.size() - 1);
+        item.component = component;
+        item.effect = effect;
+        item.image = image;
+        item.source.setBounds(source);
+        item.bounds.setBounds(end);
+        item.disappearing = false;
+        if (effect != null) {
+            effect.setStart(start);
+            effect.setEnd(end);
+            effect.setImage(image, source);
+        }
+        items.add(item);
+        return item;
+    }
+
+    /**
+     * Initializes the effects, and renders the first frame.  The entire
+     * container is repainted because components that do not move may still
+     * have changed.
+     */
+    private void startSegment() {
+        for (int i = 0, size = items.size(); i < size; i++) {
+            TransitionEffect effect = items.get(i).effect;
+            if (effect != null) {
+                effect.init(this, null);
+            }
+        }
+        running = true;
+        fraction = 0.0f;
+        previousFraction = 0.0f;
+
+        updateEffects(0.0f);
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            if (item.effect != null) {
+                item.previousOpacity = item.effect.getOpacity();
+            }
+        }
+        dirtyRegion.setBounds(0, 0, container.getWidth(), container.getHeight());
+        container.repaint();
+    }
+
+    /**
+     * Sends the specified fraction to all timing targets.  Targets may be
+     * removed by other targets, so the targets are copied first.
+     */
+    private void updateEffects(float fraction) {
+        int count = targets.size();
+        if (frameTargets.length < count) {
+            frameTargets = new TimingTarget[count];
+        }
+        targets.toArray(frameTargets);
+        for (int i = 0; i < count; i++) {
+            frameTargets[i].timingEvent(fraction);
+            frameTargets[i] = null;
+        }
+    }
+
+    /**
+     * Adds the specified bounds to the region of the current frame.
+     */
+    private void addRegion(Rectangle bounds) {
+        if (bounds.isEmpty()) {
+            return;
+        }
+        if (frameRegion.isEmpty()) {
+            frameRegion.setBounds(bounds);
+        } else {
+            frameRegion.add(bounds);
+        }
+    }
+
+    /**
+     * Cleans up all effects, and releases the components.
+     */
+    private void clear() {
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            if (item.effect != null) {
+                item.effect.cleanup(this);
+            }
+            item.clear();
+        }
+        freeItems.addAll(items);
+        items.clear();
+        targets.clear();
+        startBounds.clear();
+        effectRegistry.clear();
+        releaseDefaultEffects();
+        startBuffer = null;
+        endBuffer = null;
+        running = false;
+    }
+
+    /**
+     * Releases the default effects for reuse.
+     */
+    private void releaseDefaultEffects() {
+        moveEffects.releaseAll();
+        fadeInEffects.releaseAll();
+        fadeOutEffects.releaseAll();
+        retargetEffects.releaseAll();
+    }
+
+    /**
+     * Returns true if the specified buffer is the start or end buffer, or
+     * holds the image of a component.
+     */
+    private boolean isBufferUsed(BufferedImage buffer) {
+        return buffer == startBuffer || buffer == endBuffer || 
+            isBufferUsed(items, buffer) || isBufferUsed(oldItems, buffer);
+    }
+
+    private static boolean isBufferUsed(List<Item> itemList, BufferedImage buffer) {
+        for (int i = 0, size = itemList.size(); i < size; i++) {
+            if (itemList.get(i).image == buffer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a back buffer at least the size of the container that is not
+     * in use.  Buffers are reused, and reallocated only when the container
+     * has grown beyond them.  If all buffers are in use, which can happen
+     * only when retargeting, the images of the components in the least
+     * recently obtained buffer are released.
+     */
+    private BufferedImage obtainBuffer() {
+        int index = -1;
+        for (int i = 0, size = buffers.size(); i < size && index < 0; i++) {
+            if (!isBufferUsed(buffers.get(i))) {
+                index = i;
+            }
+        }
+        BufferedImage buffer = null;
+        if (index >= 0) {
+            buffer = buffers.remove(index);
+        } else if (buffers.size() == MAX_BUFFERS) {
+            buffer = buffers.remove(0);
+            for (int i = 0, size = oldItems.size(); i < size; i++) {
+                Item item = oldItems.get(i);
+                if (item.image == buffer) {
+                    item.image = null;
+                }
+            }
+        }
+
+        int width = Math.max(container.getWidth(), 1);
+        int height = Math.max(container.getHeight(), 1);
+        if (buffer == null || buffer.getWidth() < width || buffer.getHeight() < height) {
+            // Keep the larger dimension of the old buffer, so that growth in
+            // one dimension does not shrink the other.
+            if (buffer != null) {
+                width = Math.max(width, buffer.getWidth());
+                height = Math.max(height, buffer.getHeight());
+            }
+            GraphicsConfiguration gc = container.getGraphicsConfiguration();
+            buffer = (gc != null) ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT) :
+                new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Clears the area of the buffer covered by the container, and paints the
+     * visible children into it at their current bounds.
+     */
+    private void paintChildren(BufferedImage buffer, Component[] children) {
+        Graphics2D g2d = buffer.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, container.getWidth(), container.getHeight());
+            g2d.setComposite(AlphaComposite.SrcOver);
+            for (Component child : children) {
+                if (child.isVisible() && child.getWidth() > 0 && child.getHeight() > 0) {
+                    Graphics cg = g2d.create(child.getX(), child.getY(), child.getWidth(), child.getHeight());
+                    try {
+                        child.paint(cg);
+                    } finally {
+                        cg.dispose();
+                    }
+                    captureCount++;
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Lays out the container.  Containers that are not displayed are not
+     * laid out by validate(), so their descendants are laid out directly.
+     */
+    private static void layout(Container container) {
+        container.validate();
+        if (!container.isValid()) {
+            layoutTree(container);
+        }
+    }
+
+    /**
+     * Lays out the specified container and its descendants.
+     */
+    private static void layoutTree(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) {
+                layoutTree((Container) child);
+            }
+        }
+    }
+
+    /**
+     * Component in a transition, with its effect, or null if it does not
+     * move, and the image it is painted from.
+     */
+    private static class Item {
+        private final Rectangle bounds = new Rectangle();
+        private final Rectangle source = new Rectangle();
+        private final Rectangle previousBounds = new Rectangle();
+        private Component component;
+        private TransitionEffect effect;
+        private Image image;
+        private float previousOpacity;
+        private float opacity;
+        private float velocityX;
+        private float velocityY;
+        private float velocityWidth;
+        private float velocityHeight;
+        private boolean disappearing;
+
+        /**
+         * Records the current bounds and opacity, and the velocity over the
+         * last frame, which took the specified time in milliseconds.
+         */
+        public void captureState(float elapsed) {
+            velocityX = velocityY = velocityWidth = velocityHeight = 0.0f;
+            if (effect == null) {
+                opacity = 1.0f;
+                return;
+            }
+
+            Rectangle current = effect.getBounds();
+            opacity = effect.getOpacity();
+            if (elapsed > 0.0f) {
+                velocityX = (current.x - previousBounds.x) / elapsed;
+                velocityY = (current.y - previousBounds.y) / elapsed;
+                velocityWidth = (current.width - previousBounds.width) / elapsed;
+                velocityHeight = (current.height - previousBounds.height) / elapsed;
+            }
+            bounds.setBounds(current);
+        }
+
+        /**
+         * Returns true if the component is still and opaque at the specified
+         * bounds.
+         */
+        public boolean isAtRest(Rectangle end) {
+            return bounds.equals(end) && opacity >= 1.0f && velocityX == 0.0f && velocityY == 0.0f &&
+                velocityWidth == 0.0f && velocityHeight == 0.0f;
+        }
+
+        /**
+         * Releases the component, effect and image.
+         */
+        public void clear() {
+            component = null;
+            effect = null;
+            image = null;
+        }
+    }
+
+    /**
+     * Reusable default effects of one type, for components without an
+     * assigned effect.  Effects obtained remain in use until released.
+     */
+    private abstract static class DefaultEffects {
+        private final List<TransitionEffect> effects = new ArrayList<TransitionEffect>();
+        private int used;
+
+        /**
+         * Returns a free effect, creating one if needed.
+         */
+        public TransitionEffect obtain() {
+            if (used == effects.size()) {
+                effects.add(create());
+            }
+            return effects.get(used++);
+        }
+
+        /**
+         * Releases all effects obtained.
+         */
+        public void releaseAll() {
+            used = 0;
+        }
+
+        /**
+         * Creates a new effect.
+         */
+        protected abstract TransitionEffect create();
+    }
+}
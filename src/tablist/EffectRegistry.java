@@ -0,0 +1,100 @@
+package tablist;
+
+import java.awt.Component;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Registry of the effects assigned to the components of one container for
+ * its next transition.  Unlike the effects manager of the Animated
+ * Transitions library, the registry holds no global state: each container
+ * has its own registry, and the transition clears it when it starts and
+ * ends, so components are not retained between transitions.
+ *
+ * <p>A pool may be attached to the registry, which is released whenever
+ * the registry is cleared.  The transition clears the registry only after
+ * it has cleaned up the effects, so pooled effects are never reused while
+ * they are animating.</p>
+ */
+public class EffectRegistry {
+
+    /**
+     * Type of change to a component during a transition.
+     */
+    public static enum TransitionType {
+        /** Component is added by the transition. */
+        APPEARING,
+        /** Component is removed by the transition. */
+        DISAPPEARING,
+        /** Component remains, and its bounds change. */
+        CHANGING
+    }
+
+    private final Map<TransitionType, Map<Component, TransitionEffect>> effects =
+        new EnumMap<TransitionType, Map<Component, TransitionEffect>>(TransitionType.class);
+
+    private EffectsUtilities.EffectPool effectPool;
+
+    /**
+     * Constructs an empty EffectRegistry.
+     */
+    public EffectRegistry() {
+        for (TransitionType type : TransitionType.values()) {
+            effects.put(type, new IdentityHashMap<Component, TransitionEffect>());
+        }
+    }
+
+    /**
+     * Returns the pool of the assigned effects, or null if none.
+     */
+    public EffectsUtilities.EffectPool getEffectPool() {
+        return effectPool;
+    }
+
+    /**
+     * Sets the pool of the assigned effects, which is released when the
+     * registry is cleared.
+     */
+    public void setEffectPool(EffectsUtilities.EffectPool effectPool) {
+        this.effectPool = effectPool;
+    }
+
+    /**
+     * Assigns the specified effect to a component for the specified type of
+     * change.
+     */
+    public void setEffect(Component component, TransitionEffect effect, TransitionType type) {
+        effects.get(type).put(component, effect);
+    }
+
+    /**
+     * Returns the effect assigned to a component for the specified type of
+     * change, or null if none is assigned.
+     */
+    public TransitionEffect getEffect(Component component, TransitionType type) {
+        return effects.get(type).get(component);
+    }
+
+    /**
+     * Removes the effect assigned to a component for the specified type of
+     * change.
+     */
+    public void removeEffect(Component component, TransitionType type) {
+        effects.get(type).remove(component);
+    }
+
+    /**
+     * Removes all assigned effects, and releases the effects of the pool.
+     */
+    public void clear() {
+        for (Map<Component, TransitionEffect> typeEffects : effects.values()) {
+            if (!typeEffects.isEmpty()) {
+                typeEffects.clear();
+            }
+        }
+        if (effectPool != null) {
+            effectPool.releaseAll();
+        }
+    }
+}
@@ -1,18 +1,18 @@
 package tablist;
 
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
-import org.jdesktop.animation.timing.Animator;
-import org.jdesktop.animation.timing.interpolation.PropertySetter;
-import org.jdesktop.animation.transitions.Effect;
-import org.jdesktop.animation.transitions.effects.CompositeEffect;
-import org.jdesktop.animation.transitions.effects.FadeIn;
-import org.jdesktop.animation.transitions.effects.FadeOut;
+import org.jdesktop.animation.timing.TimingTargetAdapter;
 
 /**
  * Utility methods for animated transition effects.
  * 
- * <p>The Effect interface is part of the Animated Transitions library.</p>
+ * <p>Effects extend TransitionEffect, and are run by a ContainerTransition.</p>
  */
 public class EffectsUtilities {
 
@@ -20,7 +20,7 @@ public class EffectsUtilities {
      * Creates an effect where the component moves in from the specified start
      * position, and either grows or fades into view.
      */
-    public static Effect createMoveInEffect(int startX, int startY, boolean grow) {
+    public static TransitionEffect createMoveInEffect(int startX, int startY, boolean grow) {
         CompositeEffect effect = new CompositeEffect();
         effect.addEffect(new MoveIn(startX, startY));
         if (grow) {
@@ -35,7 +35,7 @@ public class EffectsUtilities {
      * Creates an effect where the component moves out to the specified end
      * position, and either shrinks or fades out of view.
      */
-    public static Effect createMoveOutEffect(int endX, int endY, boolean shrink) {
+    public static TransitionEffect createMoveOutEffect(int endX, int endY, boolean shrink) {
         CompositeEffect effect = new CompositeEffect();
         effect.addEffect(new MoveOut(endX, endY));
         if (shrink) {
@@ -46,34 +46,176 @@ public class EffectsUtilities {
         return effect;
     }
     
+    /**
+     * Type of pooled effect, identified by direction and by size or opacity
+     * mode.
+     */
+    public static enum EffectType {
+        MOVE_IN_GROW, MOVE_IN_FADE, MOVE_OUT_SHRINK, MOVE_OUT_FADE
+    }
+    
+    /**
+     * Pool of reusable move-in and move-out effects.  Effects obtained from
+     * the pool remain in use until <code>releaseAll()</code> is called, which
+     * is typically done when the transition that uses them is cleaned up.
+     * Effects are reset with new positions when obtained, rather than 
+     * recreated.
+     * 
+     * <p>A pool should not be shared between containers whose transitions
+     * may run at the same time.</p>
+     */
+    public static class EffectPool {
+        private final Map<EffectType, List<PooledEffect>> freeEffects = 
+            new EnumMap<EffectType, List<PooledEffect>>(EffectType.class);
+        private final Map<EffectType, List<PooledEffect>> usedEffects = 
+            new EnumMap<EffectType, List<PooledEffect>>(EffectType.class);
+        
+        private boolean enabled = true;
+        
+        /**
+         * Constructs an empty EffectPool.
+         */
+        public EffectPool() {
+            for (EffectType type : EffectType.values()) {
+                freeEffects.put(type, new ArrayList<PooledEffect>());
+                usedEffects.put(type, new ArrayList<PooledEffect>());
+            }
+        }
+        
+        /**
+         * Returns a move-in effect from the pool, where the component moves in 
+         * from the specified start position, and either grows or fades into 
+         * view.
+         */
+        public TransitionEffect getMoveInEffect(int startX, int startY, boolean grow) {
+            PooledEffect effect = obtain(grow ? EffectType.MOVE_IN_GROW : EffectType.MOVE_IN_FADE);
+            effect.moveIn.setStartLocation(startX, startY);
+            return effect;
+        }
+        
+        /**
+         * Returns a move-out effect from the pool, where the component moves 
+         * out to the specified end position, and either shrinks or fades out
+         * of view.
+         */
+        public TransitionEffect getMoveOutEffect(int endX, int endY, boolean shrink) {
+            PooledEffect effect = obtain(shrink ? EffectType.MOVE_OUT_SHRINK : EffectType.MOVE_OUT_FADE);
+            effect.moveOut.setEndLocation(endX, endY);
+            return effect;
+        }
+        
+        /**
+         * Returns an indicator that determines whether effects are reused.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        /**
+         * Sets an indicator that determines whether effects are reused.  When
+         * false, a new effect is created for every request, as by the 
+         * factory methods.  This is used to measure the benefit of the pool.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        /**
+         * Releases all effects obtained since the last call.  The caller
+         * must ensure that the effects are no longer animating.
+         */
+        public void releaseAll() {
+            for (EffectType type : EffectType.values()) {
+                List<PooledEffect> used = usedEffects.get(type);
+                freeEffects.get(type).addAll(used);
+                used.clear();
+            }
+        }
+        
+        /**
+         * Returns an effect of the specified type, reusing a free effect if 
+         * one is available.
+         */
+        private PooledEffect obtain(EffectType type) {
+            if (!enabled) {
+                return new PooledEffect(type);
+            }
+            
+            List<PooledEffect> free = freeEffects.get(type);
+            PooledEffect effect;
+            if (free.isEmpty()) {
+                effect = new PooledEffect(type);
+                TabEvents.effectCreated(type.name());
+            } else {
+                effect = free.remove(free.size() - 1);
+            }
+            usedEffects.get(type).add(effect);
+            return effect;
+        }
+    }
+    
+    /**
+     * Composite effect managed by an EffectPool.  This keeps a reference to
+     * its move effect so that the position can be reset.
+     */
+    private static class PooledEffect extends CompositeEffect {
+        private MoveIn moveIn;
+        private MoveOut moveOut;
+        
+        public PooledEffect(EffectType type) {
+            switch (type) {
+            case MOVE_IN_GROW:
+            case MOVE_IN_FADE:
+                moveIn = new MoveIn(0, 0);
+                addEffect(moveIn);
+                addEffect((type == EffectType.MOVE_IN_GROW) ? new Grow() : new FadeIn());
+                break;
+            default:
+                moveOut = new MoveOut(0, 0);
+                addEffect(moveOut);
+                addEffect((type == EffectType.MOVE_OUT_SHRINK) ? new Shrink() : new FadeOut());
+                break;
+            }
+        }
+    }
+    
     /**
      * A custom Effect to move a component from a specified starting point
      * into its end location.
      */
-    public static class MoveIn extends Effect {
+    public static class MoveIn extends TransitionEffect {
         private final Point startLocation = new Point();
-        private PropertySetter ps;
+        private final LocationSetter setter = new LocationSetter();
         
         public MoveIn(int x, int y) {
             startLocation.x = x;
             startLocation.y = y;
         }
+        
+        /**
+         * Sets the starting point for the next transition.
+         */
+        public void setStartLocation(int x, int y) {
+            startLocation.x = x;
+            startLocation.y = y;
+        }
 
         /**
          * Initializes animation to vary the location during the transition.
          */
         @Override
-        public void init(Animator animator, Effect parentEffect) {
-            Effect targetEffect = (parentEffect == null) ? this : parentEffect;
-            ps = new PropertySetter(targetEffect, "location", 
-                    startLocation, new Point(getEnd().getX(), getEnd().getY()));
-            animator.addTarget(ps);
-            super.init(animator, parentEffect);
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, startLocation.x, startLocation.y, 
+                    getEnd().x, getEnd().y);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
         }
         
         @Override
-        public void cleanup(Animator animator) {
-            animator.removeTarget(ps);
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
         }
     }
     
@@ -81,84 +223,367 @@ public class EffectsUtilities {
      * A custom Effect to move a component from its start location out to a
      * specified end point.
      */
-    public static class MoveOut extends Effect {
+    public static class MoveOut extends TransitionEffect {
         private final Point endLocation = new Point();
-        private PropertySetter ps;
+        private final LocationSetter setter = new LocationSetter();
         
         public MoveOut(int x, int y) {
             endLocation.x = x;
             endLocation.y = y;
         }
+        
+        /**
+         * Sets the end point for the next transition.
+         */
+        public void setEndLocation(int x, int y) {
+            endLocation.x = x;
+            endLocation.y = y;
+        }
 
         /**
          * Initializes animation to vary the location during the transition.
          */
         @Override
-        public void init(Animator animator, Effect parentEffect) {
-            Effect targetEffect = (parentEffect == null) ? this : parentEffect;
-            ps = new PropertySetter(targetEffect, "location", 
-                    new Point(getStart().getX(), getStart().getY()), endLocation);
-            animator.addTarget(ps);
-            super.init(animator, parentEffect);
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, getStart().x, getStart().y, 
+                    endLocation.x, endLocation.y);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
         }
         
         @Override
-        public void cleanup(Animator animator) {
-            animator.removeTarget(ps);
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
         }
     }
     
     /**
      * A custom Effect to expand a component.
      */
-    public static class Grow extends Effect {
-        private PropertySetter psWidth;
-        private PropertySetter psHeight;
+    public static class Grow extends TransitionEffect {
+        private final SizeSetter setter = new SizeSetter();
 
         /**
          * Initializes animation to vary the size during the transition.
          */
         @Override
-        public void init(Animator animator, Effect parentEffect) {
-            Effect targetEffect = (parentEffect == null) ? this : parentEffect;
-            psWidth = new PropertySetter(targetEffect, "width", 0, getEnd().getWidth());
-            animator.addTarget(psWidth);
-            psHeight = new PropertySetter(targetEffect, "height", 0, getEnd().getHeight());
-            animator.addTarget(psHeight);
-            super.init(animator, parentEffect);
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, 0, 0, getEnd().width, getEnd().height);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
         }
         
         @Override
-        public void cleanup(Animator animator) {
-            animator.removeTarget(psWidth);
-            animator.removeTarget(psHeight);
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
         }
     }
     
     /**
      * A custom Effect to shrink a component.
      */
-    public static class Shrink extends Effect {
-        private PropertySetter psWidth;
-        private PropertySetter psHeight;
+    public static class Shrink extends TransitionEffect {
+        private final SizeSetter setter = new SizeSetter();
 
         /**
          * Initializes animation to vary the size during the transition.
          */
         @Override
-        public void init(Animator animator, Effect parentEffect) {
-            Effect targetEffect = (parentEffect == null) ? this : parentEffect;
-            psWidth = new PropertySetter(targetEffect, "width", getStart().getWidth(), 0);
-            animator.addTarget(psWidth);
-            psHeight = new PropertySetter(targetEffect, "height", getStart().getHeight(), 0);
-            animator.addTarget(psHeight);
-            super.init(animator, parentEffect);
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, getStart().width, getStart().height, 0, 0);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
+        }
+        
+        @Override
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
+        }
+    }
+    
+    /**
+     * A custom Effect to move and resize a component from its start bounds
+     * to its end bounds.  This is used for components that remain in the
+     * container when their bounds change.
+     */
+    public static class Move extends TransitionEffect {
+        private final LocationSetter locationSetter = new LocationSetter();
+        private final SizeSetter sizeSetter = new SizeSetter();
+
+        /**
+         * Initializes animation to vary the bounds during the transition.
+         */
+        @Override
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            locationSetter.reset(targetEffect, getStart().x, getStart().y, getEnd().x, getEnd().y);
+            sizeSetter.reset(targetEffect, getStart().width, getStart().height, 
+                    getEnd().width, getEnd().height);
+            transition.addTarget(locationSetter);
+            transition.addTarget(sizeSetter);
+            super.init(transition, parentEffect);
+        }
+        
+        @Override
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(locationSetter);
+            transition.removeTarget(sizeSetter);
+            super.cleanup(transition);
+        }
+    }
+    
+    /**
+     * A custom Effect to fade a component into view at its end bounds.
+     */
+    public static class FadeIn extends TransitionEffect {
+        private final OpacitySetter setter = new OpacitySetter();
+
+        /**
+         * Initializes animation to vary the opacity during the transition.
+         */
+        @Override
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, 0.0f, 1.0f);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
+        }
+        
+        @Override
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
+        }
+    }
+    
+    /**
+     * A custom Effect to fade a component out of view at its start bounds.
+     */
+    public static class FadeOut extends TransitionEffect {
+        private final OpacitySetter setter = new OpacitySetter();
+
+        /**
+         * Initializes animation to vary the opacity during the transition.
+         */
+        @Override
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, 1.0f, 0.0f);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
+        }
+        
+        @Override
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
+        }
+    }
+    
+    /**
+     * A custom Effect to continue the motion of a component when a running
+     * transition is retargeted.  The bounds follow a cubic curve that leaves
+     * the start bounds at the current velocity of the component, and comes
+     * to rest at the end bounds.  The opacity changes linearly.
+     */
+    public static class Retarget extends TransitionEffect {
+        private final CurveSetter setter = new CurveSetter();
+        private float velocityX;
+        private float velocityY;
+        private float velocityWidth;
+        private float velocityHeight;
+        private float startOpacity = 1.0f;
+        private float endOpacity = 1.0f;
+        
+        /**
+         * Sets the velocity at the start bounds, in pixels per duration of
+         * the transition.
+         */
+        public void setVelocity(float x, float y, float width, float height) {
+            velocityX = x;
+            velocityY = y;
+            velocityWidth = width;
+            velocityHeight = height;
+        }
+        
+        /**
+         * Sets the opacity at the start and end of the transition.
+         */
+        public void setFade(float startOpacity, float endOpacity) {
+            this.startOpacity = startOpacity;
+            this.endOpacity = endOpacity;
+        }
+
+        /**
+         * Initializes animation to vary the bounds and opacity during the
+         * transition.
+         */
+        @Override
+        public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+            TransitionEffect targetEffect = (parentEffect == null) ? this : parentEffect;
+            setter.reset(targetEffect, getStart(), getEnd(), velocityX, velocityY, 
+                    velocityWidth, velocityHeight, startOpacity, endOpacity);
+            transition.addTarget(setter);
+            super.init(transition, parentEffect);
+        }
+        
+        @Override
+        public void cleanup(ContainerTransition transition) {
+            transition.removeTarget(setter);
+            super.cleanup(transition);
+        }
+    }
+    
+    /**
+     * TimingTarget that varies the location of an effect.  This replaces a
+     * PropertySetter on the "location" property, and interpolates values the
+     * same way, without reflection or allocating a Point on each frame.
+     */
+    private static class LocationSetter extends TimingTargetAdapter {
+        private TransitionEffect effect;
+        private int startX;
+        private int startY;
+        private int endX;
+        private int endY;
+        
+        /**
+         * Sets the target effect and the start and end locations.
+         */
+        public void reset(TransitionEffect effect, int startX, int startY, int endX, int endY) {
+            this.effect = effect;
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+        }
+        
+        @Override
+        public void timingEvent(float fraction) {
+            // Round to nearest, as in Point.setLocation(double, double).
+            effect.setX((int) Math.floor(startX + (endX - startX) * (double) fraction + 0.5));
+            effect.setY((int) Math.floor(startY + (endY - startY) * (double) fraction + 0.5));
+        }
+    }
+    
+    /**
+     * TimingTarget that varies the size of an effect.  This replaces the
+     * PropertySetters on the "width" and "height" properties, and 
+     * interpolates values the same way, without reflection or boxing.
+     */
+    private static class SizeSetter extends TimingTargetAdapter {
+        private TransitionEffect effect;
+        private int startWidth;
+        private int startHeight;
+        private int endWidth;
+        private int endHeight;
+        
+        /**
+         * Sets the target effect and the start and end sizes.
+         */
+        public void reset(TransitionEffect effect, int startWidth, int startHeight, int endWidth, int endHeight) {
+            this.effect = effect;
+            this.startWidth = startWidth;
+            this.startHeight = startHeight;
+            this.endWidth = endWidth;
+            this.endHeight = endHeight;
+        }
+        
+        @Override
+        public void timingEvent(float fraction) {
+            // Truncate the change, as in the integer evaluator.
+            effect.setWidth(startWidth + (int) ((endWidth - startWidth) * fraction));
+            effect.setHeight(startHeight + (int) ((endHeight - startHeight) * fraction));
+        }
+    }
+    
+    /**
+     * TimingTarget that varies the opacity of an effect linearly.
+     */
+    private static class OpacitySetter extends TimingTargetAdapter {
+        private TransitionEffect effect;
+        private float startOpacity;
+        private float endOpacity;
+        
+        /**
+         * Sets the target effect and the start and end opacity.
+         */
+        public void reset(TransitionEffect effect, float startOpacity, float endOpacity) {
+            this.effect = effect;
+            this.startOpacity = startOpacity;
+            this.endOpacity = endOpacity;
+        }
+        
+        @Override
+        public void timingEvent(float fraction) {
+            effect.setOpacity(startOpacity + (endOpacity - startOpacity) * fraction);
+        }
+    }
+    
+    /**
+     * TimingTarget that varies the bounds of an effect along a cubic Hermite
+     * curve with the specified start velocity and zero end velocity, and
+     * varies the opacity linearly.
+     */
+    private static class CurveSetter extends TimingTargetAdapter {
+        private TransitionEffect effect;
+        private int startX;
+        private int startY;
+        private int startWidth;
+        private int startHeight;
+        private int endX;
+        private int endY;
+        private int endWidth;
+        private int endHeight;
+        private float velocityX;
+        private float velocityY;
+        private float velocityWidth;
+        private float velocityHeight;
+        private float startOpacity;
+        private float endOpacity;
+        
+        /**
+         * Sets the target effect, the start and end bounds, the start 
+         * velocity, and the start and end opacity.
+         */
+        public void reset(TransitionEffect effect, Rectangle start, Rectangle end,
+                float velocityX, float velocityY, float velocityWidth, float velocityHeight,
+                float startOpacity, float endOpacity) {
+            this.effect = effect;
+            this.startX = start.x;
+            this.startY = start.y;
+            this.startWidth = start.width;
+            this.startHeight = start.height;
+            this.endX = end.x;
+            this.endY = end.y;
+            this.endWidth = end.width;
+            this.endHeight = end.height;
+            this.velocityX = velocityX;
+            this.velocityY = velocityY;
+            this.velocityWidth = velocityWidth;
+            this.velocityHeight = velocityHeight;
+            this.startOpacity = startOpacity;
+            this.endOpacity = endOpacity;
         }
         
         @Override
-        public void cleanup(Animator animator) {
-            animator.removeTarget(psWidth);
-            animator.removeTarget(psHeight);
+        public void timingEvent(float fraction) {
+            // Hermite basis functions, without the end velocity term.
+            float t2 = fraction * fraction;
+            float t3 = t2 * fraction;
+            float h00 = 2 * t3 - 3 * t2 + 1;
+            float h10 = t3 - 2 * t2 + fraction;
+            float h01 = 3 * t2 - 2 * t3;
+            effect.setX(Math.round(h00 * startX + h10 * velocityX + h01 * endX));
+            effect.setY(Math.round(h00 * startY + h10 * velocityY + h01 * endY));
+            effect.setWidth(Math.max(Math.round(h00 * startWidth + h10 * velocityWidth + h01 * endWidth), 0));
+            effect.setHeight(Math.max(Math.round(h00 * startHeight + h10 * velocityHeight + h01 * endHeight), 0));
+            effect.setOpacity(startOpacity + (endOpacity - startOpacity) * fraction);
         }
     }
 }
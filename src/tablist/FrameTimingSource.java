@@ -0,0 +1,109 @@
+package tablist;
+
+import org.jdesktop.animation.timing.TimingSource;
+
+/**
+ * Timing source that drives an Animator from an AnimationPulse, and records
+ * the processing time and interval of each frame in a TransitionMetrics.
+ * Frame intervals may also be reported to a QualityGovernor.  This replaces
+ * the default timing source of the Animator, which runs its own timer.
+ */
+public class FrameTimingSource extends TimingSource {
+
+    private final AnimationPulse pulse;
+    private final TransitionMetrics metrics;
+    private final QualityGovernor governor;
+
+    private int resolution = 20;
+    private int startDelay;
+    private boolean active;
+    private long startTime;
+    private long lastFrameStart;
+
+    /**
+     * Constructs a FrameTimingSource that records to the specified metrics.
+     */
+    public FrameTimingSource(TransitionMetrics metrics) {
+        this(metrics, null);
+    }
+
+    /**
+     * Constructs a FrameTimingSource that records to the specified metrics,
+     * and reports frame intervals to the specified governor if not null.
+     * The source is driven by the shared pulse.
+     */
+    public FrameTimingSource(TransitionMetrics metrics, QualityGovernor governor) {
+        this(AnimationPulse.getShared(), metrics, governor);
+    }
+
+    /**
+     * Constructs a FrameTimingSource driven by the specified pulse.
+     */
+    public FrameTimingSource(AnimationPulse pulse, TransitionMetrics metrics, QualityGovernor governor) {
+        this.pulse = pulse;
+        this.metrics = metrics;
+        this.governor = governor;
+    }
+
+    @Override
+    public void start() {
+        active = true;
+        startTime = System.nanoTime() + startDelay * 1000000L;
+        lastFrameStart = 0;
+        pulse.add(this);
+    }
+
+    @Override
+    public void stop() {
+        active = false;
+        pulse.remove(this);
+    }
+
+    @Override
+    public void setResolution(int resolution) {
+        this.resolution = resolution;
+        if (active) {
+            pulse.updateResolution();
+        }
+    }
+
+    @Override
+    public void setStartDelay(int delay) {
+        this.startDelay = delay;
+    }
+
+    /**
+     * Returns the requested interval between timing events in milliseconds.
+     */
+    public int getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Sends a timing event to the animator, unless the source is stopped or
+     * its start delay has not elapsed.  This is called by the pulse at the
+     * specified time with its current resolution.
+     */
+    void pulse(long now, int pulseResolution) {
+        if (!active || now - startTime < 0) {
+            return;
+        }
+        
+        TabEvents.Frame event = new TabEvents.Frame();
+        event.begin();
+        long start = System.nanoTime();
+        timingEvent();
+        metrics.recordFrame(start, System.nanoTime(), pulseResolution);
+        if (event.shouldCommit()) {
+            event.interval = (lastFrameStart != 0) ? start - lastFrameStart : 0;
+            event.resolution = pulseResolution;
+            event.commit();
+        }
+        
+        // Report interval since the previous frame of this animation.
+        if (governor != null && lastFrameStart != 0) {
+            governor.recordFrame(start - lastFrameStart, start);
+        }
+        lastFrameStart = start;
+    }
+}
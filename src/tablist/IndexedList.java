@@ -0,0 +1,536 @@
+package tablist;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * List implementation backed by an order-statistic tree.  Insertion,
+ * removal and positional access take O(log n) time at any index, and
+ * <code>indexOf()</code>, <code>contains()</code> and
+ * <code>remove(Object)</code> take O(log n) time using an index from each
+ * element to its tree node.
+ *
+ * <p>Elements must be distinct and non-null.  The tree is a randomized
+ * treap ordered by position, where each node keeps its subtree size and a
+ * link to its parent so that the position of a node can be computed by
+ * walking up to the root.</p>
+ * 
+ * <p>Each element may also be assigned a non-negative weight.  Nodes keep
+ * the sum of weights in their subtree, so prefix sums of weights, and the
+ * number of leading elements that fit within a total weight, can be found
+ * in O(log n) time.  New elements have a weight of zero.</p>
+ * 
+ * <p>Adding a collection of elements builds a balanced tree from the
+ * elements in O(m) time, and inserts it in O(log n) time.  Iteration walks
+ * the tree in order, and takes O(n) time for the whole list.</p>
+ */
+public class IndexedList<E> extends AbstractList<E> {
+
+    private final Map<E, Node<E>> nodeMap = new HashMap<E, Node<E>>();
+    private final Random random = new Random();
+
+    private Node<E> root;
+
+    // Results of the last split operation.
+    private Node<E> splitLeft;
+    private Node<E> splitRight;
+
+    /**
+     * Constructs an empty IndexedList.
+     */
+    public IndexedList() {
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        return nodeAt(index).value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        Node<E> node = nodeAt(index);
+        E oldValue = node.value;
+
+        // Replacing an element with itself is allowed.
+        if (nodeMap.get(element) != node) {
+            checkElement(element);
+        }
+        nodeMap.remove(oldValue);
+        node.value = element;
+        nodeMap.put(element, node);
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        checkElement(element);
+
+        Node<E> node = new Node<E>(element, random.nextInt());
+        nodeMap.put(element, node);
+
+        split(root, index);
+        Node<E> left = detach(splitLeft);
+        Node<E> right = detach(splitRight);
+        root = detach(merge(merge(left, node), right));
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        return addAll(index, new ArrayList<E>(c), null);
+    }
+
+    /**
+     * Inserts the specified elements at the specified index, with the
+     * specified weights.  If the weights are null, the elements have a
+     * weight of zero.  Returns true if the list changed.
+     */
+    public boolean addAll(int index, List<? extends E> elements, int[] weights) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int count = elements.size();
+        if (weights != null && weights.length < count) {
+            throw new IllegalArgumentException("Missing weights: " + weights.length + " < " + count);
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        // Create nodes, and undo changes to the index if an element is
+        // invalid.
+        List<Node<E>> nodes = new ArrayList<Node<E>>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                E element = elements.get(i);
+                checkElement(element);
+                Node<E> node = new Node<E>(element, 0);
+                if (weights != null) {
+                    if (weights[i] < 0) {
+                        throw new IllegalArgumentException("Negative weight: " + weights[i]);
+                    }
+                    node.weight = weights[i];
+                }
+                nodeMap.put(element, node);
+                nodes.add(node);
+            }
+        } catch (RuntimeException ex) {
+            for (Node<E> node : nodes) {
+                nodeMap.remove(node.value);
+            }
+            throw ex;
+        }
+
+        int height = 32 - Integer.numberOfLeadingZeros(count);
+        int levelRange = (int) Math.min((1L << 32) / height, Integer.MAX_VALUE);
+        Node<E> tree = buildTree(nodes, 0, count, 0, levelRange);
+
+        split(root, index);
+        Node<E> left = detach(splitLeft);
+        Node<E> right = detach(splitRight);
+        root = detach(merge(merge(left, tree), right));
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new TreeIterator();
+    }
+
+    @Override
+    public E remove(int index) {
+        Node<E> node = nodeAt(index);
+        nodeMap.remove(node.value);
+        removeNode(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Node<E> node = nodeMap.remove(o);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Node<E> node = nodeMap.get(o);
+        if (node == null) {
+            return -1;
+        }
+
+        // Count all nodes to the left of the node on the path to the root.
+        int index = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return nodeMap.containsKey(o);
+    }
+
+    /**
+     * Returns the weight of the specified element, or zero if the element is
+     * not in the list.
+     */
+    public int getWeight(Object o) {
+        Node<E> node = nodeMap.get(o);
+        return (node != null) ? node.weight : 0;
+    }
+
+    /**
+     * Sets the weight of the specified element.  This takes O(log n) time.
+     */
+    public void setWeight(Object o, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + weight);
+        }
+        Node<E> node = nodeMap.get(o);
+        if (node == null) {
+            throw new IllegalArgumentException("Element not in list: " + o);
+        }
+
+        node.weight = weight;
+        for (; node != null; node = node.parent) {
+            update(node);
+        }
+    }
+
+    /**
+     * Returns the sum of the weights of the first <code>count</code>
+     * elements.  This takes O(log n) time.
+     */
+    public long getWeightSum(int count) {
+        if (count < 0 || count > size()) {
+            throw new IndexOutOfBoundsException("Count: " + count + ", Size: " + size());
+        }
+
+        long sum = 0;
+        Node<E> node = root;
+        while (node != null && count > 0) {
+            int leftSize = size(node.left);
+            if (count <= leftSize) {
+                node = node.left;
+            } else {
+                sum += weightSum(node.left) + node.weight;
+                count -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the largest number of leading elements whose weights add up to
+     * no more than the specified limit.  This takes O(log n) time.
+     */
+    public int countWithinWeight(long limit) {
+        int count = 0;
+        Node<E> node = root;
+        while (node != null) {
+            long leftSum = weightSum(node.left);
+            if (limit < leftSum) {
+                node = node.left;
+            } else if (limit < leftSum + node.weight) {
+                return count + size(node.left);
+            } else {
+                count += size(node.left) + 1;
+                limit -= leftSum + node.weight;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        nodeMap.clear();
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Verifies that the specified element can be added to the list.
+     */
+    private void checkElement(E element) {
+        if (element == null) {
+            throw new NullPointerException("Null elements are not supported");
+        }
+        if (nodeMap.containsKey(element)) {
+            throw new IllegalArgumentException("Element already in list: " + element);
+        }
+    }
+
+    /**
+     * Returns the node at the specified index.
+     */
+    private Node<E> nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Builds a balanced tree from the specified range of nodes, and returns
+     * its root.  Each level of the tree is assigned random priorities from a
+     * separate range, in decreasing order from the root, so that the tree is
+     * a valid treap.
+     */
+    private Node<E> buildTree(List<Node<E>> nodes, int from, int to, int depth, int levelRange) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<E> node = nodes.get(mid);
+        node.priority = (int) (Integer.MAX_VALUE - (long) depth * levelRange - random.nextInt(levelRange));
+        node.left = buildTree(nodes, from, mid, depth + 1, levelRange);
+        node.right = buildTree(nodes, mid + 1, to, depth + 1, levelRange);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Unlinks the specified node from the tree, and updates the subtree
+     * sizes of its ancestors.
+     */
+    private void removeNode(Node<E> node) {
+        Node<E> replacement = merge(detach(node.left), detach(node.right));
+        Node<E> parent = node.parent;
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+
+        for (Node<E> ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            update(ancestor);
+        }
+
+        node.left = node.right = node.parent = null;
+        modCount++;
+    }
+
+    /**
+     * Splits the specified subtree so that <code>splitLeft</code> contains
+     * the first <code>count</code> nodes, and <code>splitRight</code>
+     * contains the remaining nodes.
+     */
+    private void split(Node<E> node, int count) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+        } else if (size(node.left) < count) {
+            split(node.right, count - size(node.left) - 1);
+            node.right = splitLeft;
+            if (splitLeft != null) {
+                splitLeft.parent = node;
+            }
+            update(node);
+            splitLeft = node;
+        } else {
+            split(node.left, count);
+            node.left = splitRight;
+            if (splitRight != null) {
+                splitRight.parent = node;
+            }
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    /**
+     * Merges two subtrees, where all nodes in the left subtree precede all
+     * nodes in the right subtree.  Returns the root of the merged tree.
+     */
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.right.parent = left;
+            update(left);
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.left.parent = right;
+            update(right);
+            return right;
+        }
+    }
+
+    /**
+     * Clears the parent link of the specified subtree root, and returns the
+     * node.
+     */
+    private static <E> Node<E> detach(Node<E> node) {
+        if (node != null) {
+            node.parent = null;
+        }
+        return node;
+    }
+
+    /**
+     * Recomputes the subtree size and weight sum of the specified node.
+     */
+    private static <E> void update(Node<E> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        node.weightSum = weightSum(node.left) + weightSum(node.right) + node.weight;
+    }
+
+    /**
+     * Returns the size of the specified subtree.
+     */
+    private static <E> int size(Node<E> node) {
+        return (node != null) ? node.size : 0;
+    }
+
+    /**
+     * Returns the sum of weights in the specified subtree.
+     */
+    private static <E> long weightSum(Node<E> node) {
+        return (node != null) ? node.weightSum : 0;
+    }
+
+    /**
+     * Iterator that walks the tree in order using parent links.
+     */
+    private class TreeIterator implements Iterator<E> {
+        private Node<E> next;
+        private Node<E> last;
+        private int expectedModCount = modCount;
+
+        public TreeIterator() {
+            next = root;
+            while (next != null && next.left != null) {
+                next = next.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = successor(next);
+            return last.value;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            nodeMap.remove(last.value);
+            removeNode(last);
+            last = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns the node following the specified node, or null if the node is
+     * the last one.
+     */
+    private static <E> Node<E> successor(Node<E> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    /**
+     * Tree node.
+     */
+    private static class Node<E> {
+        private int priority;
+        private E value;
+        private Node<E> left;
+        private Node<E> right;
+        private Node<E> parent;
+        private int size = 1;
+        private int weight;
+        private long weightSum;
+
+        public Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+}
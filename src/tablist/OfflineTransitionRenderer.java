@@ -0,0 +1,241 @@
+package tablist;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+import javax.swing.JComponent;
+
+/**
+ * Renderer that steps the transitions of an AnimatedTabPanel at a fixed
+ * timestep in virtual time, and paints each frame into an offscreen image.
+ * The panel does not need to be displayed, so transitions can be captured
+ * headless and used as repeatable performance tests.
+ *
+ * <p>For each frame, the renderer reports the CPU time and bytes allocated
+ * by the event dispatch thread to advance the transition and paint the
+ * frame.  Frame 0 includes the operation that starts the transition.  Each
+ * frame may also be written to a PNG file for visual diffing.  The display
+ * component of the panel must be sized before rendering, and all methods
+ * must be called on the event dispatch thread.</p>
+ */
+public class OfflineTransitionRenderer {
+    private final AnimatedTabPanel panel;
+    private final VirtualClock clock;
+    private final int frameInterval;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private File dumpDirectory;
+    private BufferedImage image;
+
+    /**
+     * Constructs an OfflineTransitionRenderer for the specified panel, with
+     * the specified interval between frames in milliseconds.  The panel's
+     * transitions are driven by a virtual clock from now on.
+     */
+    public OfflineTransitionRenderer(AnimatedTabPanel panel, int frameInterval) {
+        this.panel = panel;
+        this.frameInterval = Math.max(frameInterval, 1);
+        if (panel.getVirtualClock() == null) {
+            panel.setVirtualClock(new VirtualClock());
+        }
+        this.clock = panel.getVirtualClock();
+    }
+
+    /**
+     * Returns the virtual clock that drives the panel's transitions.
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the directory to which frames are written as PNG files, or null
+     * to not write frames.
+     */
+    public void setDumpDirectory(File dumpDirectory) {
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    /**
+     * Runs the specified operation, which may start a transition, and
+     * renders every frame until the transition ends.  Frames are written to
+     * files named after the specified capture name, if a dump directory is
+     * set.
+     */
+    public FrameReport render(String name, Runnable operation) throws IOException {
+        if (dumpDirectory != null) {
+            dumpDirectory.mkdirs();
+        }
+
+        FrameReport report = new FrameReport(name);
+        long cpuTime = getCpuTime();
+        long allocatedBytes = getAllocatedBytes();
+        operation.run();
+        paintFrame();
+        report.addFrame(getCpuTime() - cpuTime, getAllocatedBytes() - allocatedBytes);
+        dumpFrame(name, 0);
+
+        while (clock.isRunning()) {
+            cpuTime = getCpuTime();
+            allocatedBytes = getAllocatedBytes();
+            clock.advance(frameInterval);
+            paintFrame();
+            report.addFrame(getCpuTime() - cpuTime, getAllocatedBytes() - allocatedBytes);
+            dumpFrame(name, report.getFrameCount() - 1);
+        }
+        return report;
+    }
+
+    /**
+     * Paints the display component into the frame image, which is reused
+     * unless the component size changes.
+     */
+    private void paintFrame() {
+        JComponent component = panel.getComponent();
+        int width = Math.max(component.getWidth(), 1);
+        int height = Math.max(component.getHeight(), 1);
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, width, height);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            component.paint(g2d);
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Writes the frame image to a PNG file, if a dump directory is set.
+     */
+    private void dumpFrame(String name, int frame) throws IOException {
+        if (dumpDirectory != null) {
+            String fileName = String.format(Locale.US, "%s-%03d.png", name, frame);
+            ImageIO.write(image, "png", new File(dumpDirectory, fileName));
+        }
+    }
+
+    /**
+     * Returns the CPU time of the current thread in nanoseconds, or 0 if it
+     * is not supported.
+     */
+    private long getCpuTime() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread, or 0 if this is not
+     * supported.  This uses an extension of the HotSpot thread bean.
+     */
+    private long getAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * CPU time and allocation of each frame of a captured transition.
+     */
+    public static class FrameReport {
+        private final String name;
+        private long[] cpuTimes = new long[16];
+        private long[] allocatedBytes = new long[16];
+        private int frameCount;
+
+        /**
+         * Constructs an empty FrameReport with the specified capture name.
+         */
+        public FrameReport(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the capture name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of frames, including frame 0.
+         */
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        /**
+         * Returns the CPU time of the specified frame in nanoseconds.
+         */
+        public long getCpuTime(int frame) {
+            return cpuTimes[frame];
+        }
+
+        /**
+         * Returns the bytes allocated by the specified frame.
+         */
+        public long getAllocatedBytes(int frame) {
+            return allocatedBytes[frame];
+        }
+
+        /**
+         * Returns the average CPU time in nanoseconds of the frames after
+         * frame 0, or 0 if there are none.
+         */
+        public double getMeanFrameCpuTime() {
+            return mean(cpuTimes);
+        }
+
+        /**
+         * Returns the average bytes allocated by the frames after frame 0,
+         * or 0 if there are none.
+         */
+        public double getMeanFrameAllocatedBytes() {
+            return mean(allocatedBytes);
+        }
+
+        /**
+         * Adds a frame with the specified CPU time and allocation.
+         */
+        void addFrame(long cpuTime, long bytes) {
+            if (frameCount == cpuTimes.length) {
+                cpuTimes = Arrays.copyOf(cpuTimes, frameCount * 2);
+                allocatedBytes = Arrays.copyOf(allocatedBytes, frameCount * 2);
+            }
+            cpuTimes[frameCount] = cpuTime;
+            allocatedBytes[frameCount] = bytes;
+            frameCount++;
+        }
+
+        private double mean(long[] values) {
+            if (frameCount <= 1) {
+                return 0;
+            }
+            long total = 0;
+            for (int i = 1; i < frameCount; i++) {
+                total += values[i];
+            }
+            return (double) total / (frameCount - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: frames=%d, setupCpu=%d, frameCpu=%.0f, setupBytes=%d, frameBytes=%.0f",
+                    name, frameCount, (frameCount > 0) ? cpuTimes[0] : 0, getMeanFrameCpuTime(),
+                    (frameCount > 0) ? allocatedBytes[0] : 0, getMeanFrameAllocatedBytes());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package tablist;
+
+/**
+ * Governor that adapts the quality of tab transitions to the recent frame
+ * intervals and the rate of animated tab operations.  When frames take
+ * longer than the frame budget, or operations arrive faster than the
+ * operation limit, the quality is lowered one step at a time: size effects
+ * are replaced by fades, then the duration is shortened, and then tabs are
+ * laid out immediately without animation.  When there is headroom again, the
+ * quality is raised one step at a time after the recovery delay.
+ *
+ * <p>All times are in nanoseconds, and are supplied by the caller, normally
+ * from <code>System.nanoTime()</code>.  This allows the governor to be driven
+ * by a simulated clock.  Methods should be called on the event dispatch
+ * thread.</p>
+ */
+public class QualityGovernor {
+
+    /**
+     * Quality level of a transition, from highest to lowest.
+     */
+    public static enum Quality {
+        /** Tabs move and change size. */
+        FULL,
+        /** Tabs move and fade instead of changing size. */
+        FADE,
+        /** Tabs move and fade with a shorter duration. */
+        SHORT,
+        /** Tabs are laid out immediately without animation. */
+        INSTANT
+    }
+
+    private static final int OPERATION_HISTORY = 64;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /** Weight of each new frame in the moving average of frame intervals. */
+    private static final double FRAME_WEIGHT = 0.25;
+
+    private final long[] operationTimes = new long[OPERATION_HISTORY];
+
+    private boolean enabled = true;
+    private long frameBudget = 30 * NANOS_PER_MILLI;
+    private int minFrames = 4;
+    private int maxOperations = 6;
+    private long operationWindow = 1000 * NANOS_PER_MILLI;
+    private long holdTime = 500 * NANOS_PER_MILLI;
+    private long recoveryDelay = 2000 * NANOS_PER_MILLI;
+    private double recoveryRatio = 0.75;
+    private int fullDuration = 250;
+    private int shortDuration = 120;
+
+    private Quality quality = Quality.FULL;
+    private boolean changed;
+    private long lastChange;
+    private double frameAverage;
+    private int frameCount;
+    private long operationCount;
+
+    /**
+     * Constructs a QualityGovernor with default thresholds.
+     */
+    public QualityGovernor() {
+    }
+
+    /**
+     * Records an animated operation at the specified time.  The quality is
+     * lowered if operations arrive faster than the operation limit.
+     */
+    public void recordOperation(long now) {
+        operationTimes[(int) (operationCount++ % OPERATION_HISTORY)] = now;
+        if (isBusy(now)) {
+            lower(now);
+        }
+    }
+
+    /**
+     * Records an animation frame that started the specified interval after
+     * the previous frame.  The quality is lowered if the moving average of
+     * recent frame intervals exceeds the frame budget.
+     */
+    public void recordFrame(long interval, long now) {
+        frameAverage = (frameCount == 0) ? interval : frameAverage + (interval - frameAverage) * FRAME_WEIGHT;
+        frameCount++;
+        if (frameCount >= minFrames && frameAverage > frameBudget) {
+            lower(now);
+        }
+    }
+
+    /**
+     * Returns the quality for a transition starting at the specified time.
+     * The quality is raised one step if it has not changed for the recovery
+     * delay, operations are within the limit, and recent frames were well
+     * within the frame budget.
+     */
+    public Quality getQuality(long now) {
+        if (!enabled) {
+            return Quality.FULL;
+        }
+
+        if (quality != Quality.FULL && now - lastChange >= recoveryDelay && !isBusy(now) &&
+                (frameCount < minFrames || frameAverage <= frameBudget * recoveryRatio)) {
+            setQuality(Quality.values()[quality.ordinal() - 1], now);
+        }
+        return quality;
+    }
+
+    /**
+     * Returns the transition duration in milliseconds for the specified
+     * quality.
+     */
+    public int getDuration(Quality quality) {
+        return (quality == Quality.SHORT || quality == Quality.INSTANT) ? shortDuration : fullDuration;
+    }
+
+    /**
+     * Returns an indicator that determines whether the quality is adapted.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets an indicator that determines whether the quality is adapted.  When
+     * false, transitions always use full quality.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets the average frame interval in milliseconds above which the
+     * quality is lowered.  The default is 30 ms.
+     */
+    public void setFrameBudget(int millis) {
+        frameBudget = millis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Sets the number of frames recorded after a change before the frame
+     * budget is applied.  The default is 4.
+     */
+    public void setMinFrames(int minFrames) {
+        this.minFrames = Math.max(minFrames, 1);
+    }
+
+    /**
+     * Sets the maximum number of animated operations in the specified
+     * window in milliseconds.  More operations lower the quality.  The
+     * default is 6 operations in 1000 ms.
+     */
+    public void setOperationLimit(int maxOperations, int windowMillis) {
+        this.maxOperations = Math.min(Math.max(maxOperations, 1), OPERATION_HISTORY - 1);
+        this.operationWindow = windowMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Sets the minimum time in milliseconds between lowering steps.  The
+     * default is 500 ms.
+     */
+    public void setHoldTime(int millis) {
+        holdTime = millis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Sets the time in milliseconds without a change before the quality is
+     * raised, and the fraction of the frame budget that recent frames must
+     * be within.  The default is 2000 ms and 0.75.
+     */
+    public void setRecovery(int delayMillis, double ratio) {
+        recoveryDelay = delayMillis * NANOS_PER_MILLI;
+        recoveryRatio = ratio;
+    }
+
+    /**
+     * Sets the full and short transition durations in milliseconds.  The
+     * default is 250 ms and 120 ms.
+     */
+    public void setDurations(int fullDuration, int shortDuration) {
+        this.fullDuration = fullDuration;
+        this.shortDuration = shortDuration;
+    }
+
+    /**
+     * Returns true if more than the maximum number of operations occurred
+     * in the operation window before the specified time.
+     */
+    private boolean isBusy(long now) {
+        if (operationCount <= maxOperations) {
+            return false;
+        }
+        long oldest = operationTimes[(int) ((operationCount - maxOperations - 1) % OPERATION_HISTORY)];
+        return now - oldest < operationWindow;
+    }
+
+    /**
+     * Lowers the quality one step, unless it changed within the hold time.
+     */
+    private void lower(long now) {
+        if (enabled && quality != Quality.INSTANT && (!changed || now - lastChange >= holdTime)) {
+            setQuality(Quality.values()[quality.ordinal() + 1], now);
+        }
+    }
+
+    /**
+     * Sets the quality, and restarts the frame average.
+     */
+    private void setQuality(Quality quality, long now) {
+        this.quality = quality;
+        changed = true;
+        lastChange = now;
+        frameAverage = 0;
+        frameCount = 0;
+    }
+}
@@ -0,0 +1,222 @@
+package tablist;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Popup to switch tabs from the keyboard.  Typing in the search field lists
+ * the best matching tabs from a TabSearchIndex, the Up and Down keys move
+ * through the results, and Enter chooses the highlighted tab.
+ *
+ * <p>When a tab is chosen, the popup closes and notifies its action listener
+ * with itself as the event source.</p>
+ */
+public class QuickSwitcher extends JPopupMenu implements TabChooser {
+    private static final int MAX_RESULTS = 12;
+    private static final int ROW_WIDTH = 260;
+
+    private final TabSearchIndex searchIndex;
+    private final ActionListener chooseListener;
+    private final JTextField searchField;
+    private final ResultListModel listModel;
+    private final JList<TabModel.Entry> list;
+
+    private TabModel.Entry chosenEntry;
+
+    /**
+     * Constructs a QuickSwitcher that searches the specified index.  The
+     * specified listener is notified when a tab is chosen.
+     */
+    public QuickSwitcher(TabSearchIndex searchIndex, ActionListener chooseListener) {
+        this.searchIndex = searchIndex;
+        this.chooseListener = chooseListener;
+
+        searchField = new JTextField();
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        listModel = new ResultListModel();
+        list = new JList<TabModel.Entry>(listModel);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setPrototypeCellValue(new TabModel.Entry(-1, "Tab"));
+        list.setFixedCellWidth(ROW_WIDTH);
+        list.setVisibleRowCount(MAX_RESULTS);
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    chooseIndex(index);
+                }
+            }
+        });
+
+        // Keys are handled by the search field, which keeps the focus.
+        InputMap inputMap = searchField.getInputMap(JComponent.WHEN_FOCUSED);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "chooseTab");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "cancel");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "previousResult");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "nextResult");
+        searchField.getActionMap().put("chooseTab", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = list.getSelectedIndex();
+                if (index >= 0) {
+                    chooseIndex(index);
+                }
+            }
+        });
+        searchField.getActionMap().put("cancel", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setVisible(false);
+            }
+        });
+        searchField.getActionMap().put("previousResult", new MoveAction(-1));
+        searchField.getActionMap().put("nextResult", new MoveAction(1));
+
+        JPanel panel = new JPanel(new BorderLayout(0, 2));
+        panel.setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
+        panel.setOpaque(false);
+        panel.add(searchField, BorderLayout.NORTH);
+        panel.add(list, BorderLayout.CENTER);
+        add(panel);
+    }
+
+    @Override
+    public TabModel.Entry getChosenEntry() {
+        return chosenEntry;
+    }
+
+    /**
+     * Clears the search field, and displays the popup.
+     */
+    @Override
+    public void show(Component invoker, int x, int y) {
+        chosenEntry = null;
+        searchField.setText("");
+        super.show(invoker, x, y);
+        searchField.requestFocusInWindow();
+    }
+
+    /**
+     * Sets the query text, which updates the results.
+     */
+    void setQuery(String query) {
+        searchField.setText(query);
+    }
+
+    /**
+     * Returns the current results.
+     */
+    List<TabModel.Entry> getResults() {
+        return listModel.results;
+    }
+
+    /**
+     * Searches for the current query text, and highlights the best result.
+     */
+    private void updateResults() {
+        List<TabModel.Entry> results = searchIndex.search(searchField.getText(), MAX_RESULTS);
+        listModel.setResults(results);
+        if (!results.isEmpty()) {
+            list.setSelectedIndex(0);
+        }
+    }
+
+    /**
+     * Chooses the result at the specified index, closes the popup, and
+     * notifies the listener.
+     */
+    void chooseIndex(int index) {
+        chosenEntry = listModel.getElementAt(index);
+        setVisible(false);
+        chooseListener.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "chooseTab"));
+    }
+
+    /**
+     * Action to move the highlighted result by the specified offset.
+     */
+    private class MoveAction extends AbstractAction {
+        private final int offset;
+
+        public MoveAction(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            int size = listModel.getSize();
+            if (size > 0) {
+                int index = Math.min(Math.max(list.getSelectedIndex() + offset, 0), size - 1);
+                list.setSelectedIndex(index);
+            }
+        }
+    }
+
+    /**
+     * List model containing the current search results.
+     */
+    private static class ResultListModel extends AbstractListModel<TabModel.Entry> {
+        private List<TabModel.Entry> results = new ArrayList<TabModel.Entry>();
+
+        @Override
+        public int getSize() {
+            return results.size();
+        }
+
+        @Override
+        public TabModel.Entry getElementAt(int index) {
+            return results.get(index);
+        }
+
+        /**
+         * Replaces the results, and notifies list listeners.
+         */
+        public void setResults(List<TabModel.Entry> newResults) {
+            int oldSize = results.size();
+            results = newResults;
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!results.isEmpty()) {
+                fireIntervalAdded(this, 0, results.size() - 1);
+            }
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package tablist;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.Transparency;
 import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -24,13 +35,21 @@ import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 /**
- * Tab component.
+ * Tab component.  The tab keeps a cached image of its rendered content, 
+ * which is drawn instead of painting the child components until the tab
+ * selection, name, size or close button state changes.  This makes repeated
+ * painting during transitions a single image draw.
  */
 public class Tab extends JPanel {
     private static final Color SELECTED_BACKGROUND = Color.GRAY;
     private static final Color UNSELECTED_BACKGROUND = Color.LIGHT_GRAY;
+    private static final Icon CLOSE_ICON = new CloseIcon(Color.BLACK, 6);
+    private static final Icon CLOSE_ROLLOVER_ICON = new CloseIcon(Color.RED, 6);
 
     private final Action mainAction;
     private final Action closeAction;
@@ -39,6 +58,12 @@ public class Tab extends JPanel {
     private JButton closeButton = new CloseButton();
     
     private boolean selected;
+    private TabModel.Entry entry;
+    
+    private boolean cacheEnabled = true;
+    private BufferedImage cachedImage;
+    private double cachedScale;
+    private boolean cacheValid;
     
     /**
      * Constructs a tab with the specified main and close actions.
@@ -66,6 +91,42 @@ public class Tab extends JPanel {
         		GridBagConstraints.CENTER, GridBagConstraints.NONE, new Insets(0,0,0,0), 0, 0));
     }
     
+    /**
+     * Binds the tab to the specified model entry.  This updates the tab name
+     * and selection state to match the entry.  A null value unbinds the tab.
+     */
+    public void bind(TabModel.Entry entry) {
+        this.entry = entry;
+        clearImageCache();
+        if (entry != null) {
+            nameLabel.setText(entry.getTitle());
+            setSelected(entry.isSelected());
+        } else {
+            setSelected(false);
+        }
+    }
+    
+    /**
+     * Returns the model entry bound to the tab, or null if the tab is not
+     * bound.
+     */
+    public TabModel.Entry getEntry() {
+        return entry;
+    }
+    
+    /**
+     * Returns the preferred width of the tab if it displayed the specified
+     * name.  This measures the name without changing the tab.
+     */
+    public int getPreferredWidth(String name) {
+        Insets tabInsets = getInsets();
+        Insets labelInsets = nameLabel.getInsets();
+        FontMetrics metrics = nameLabel.getFontMetrics(nameLabel.getFont());
+        int nameWidth = (name != null) ? SwingUtilities.computeStringWidth(metrics, name) : 0;
+        return tabInsets.left + labelInsets.left + nameWidth + labelInsets.right +
+            closeButton.getPreferredSize().width + tabInsets.right;
+    }
+    
     /**
      * Creates a new Action that can be used to select the tab.
      */
@@ -91,12 +152,126 @@ public class Tab extends JPanel {
     public void setSelected(boolean selected) {
         this.selected = selected;
         setBackground(selected ? SELECTED_BACKGROUND : UNSELECTED_BACKGROUND);
+        clearImageCache();
+    }
+    
+    /**
+     * Returns an indicator that determines whether the rendered tab image is
+     * cached.
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+    
+    /**
+     * Sets an indicator that determines whether the rendered tab image is
+     * cached.  The default value is true.
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+        if (!cacheEnabled) {
+            cachedImage = null;
+        }
+        clearImageCache();
+    }
+    
+    /**
+     * Discards the cached image so that the tab is rendered again when it
+     * is next painted.
+     */
+    public void clearImageCache() {
+        cacheValid = false;
+    }
+    
+    /**
+     * Overrides superclass method to clear the cached image when the layout
+     * of the tab changes.
+     */
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        clearImageCache();
+    }
+    
+    /**
+     * Overrides superclass method to paint the tab using the cached image.
+     * The image is rendered at the scale of the graphics context so that it
+     * remains sharp on high resolution displays.
+     */
+    @Override
+    public void paint(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (!cacheEnabled || width <= 0 || height <= 0) {
+            super.paint(g);
+            return;
+        }
+        
+        // Get device scale from graphics transform.
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        double scale = Math.max(transform.getScaleX(), transform.getScaleY());
+        int imageWidth = (int) Math.ceil(width * scale);
+        int imageHeight = (int) Math.ceil(height * scale);
+        
+        // Render tab into cached image if needed.
+        if (!cacheValid || cachedImage == null || scale != cachedScale ||
+                cachedImage.getWidth() != imageWidth || cachedImage.getHeight() != imageHeight) {
+            if (cachedImage == null || 
+                    cachedImage.getWidth() != imageWidth || cachedImage.getHeight() != imageHeight) {
+                // Use an opaque image when possible so that it can be copied
+                // without blending.
+                cachedImage = new BufferedImage(imageWidth, imageHeight, 
+                        isOpaque() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            }
+            
+            Graphics2D g2d = cachedImage.createGraphics();
+            if (!isOpaque()) {
+                g2d.setComposite(AlphaComposite.Clear);
+                g2d.fillRect(0, 0, imageWidth, imageHeight);
+                g2d.setComposite(AlphaComposite.SrcOver);
+            }
+            g2d.scale(scale, scale);
+            super.paint(g2d);
+            g2d.dispose();
+            
+            cachedScale = scale;
+            cacheValid = true;
+        }
+        
+        if (imageWidth == width && imageHeight == height) {
+            g.drawImage(cachedImage, 0, 0, null);
+        } else {
+            g.drawImage(cachedImage, 0, 0, width, height, null);
+        }
+    }
+    
+    /**
+     * Returns the bounds of the name within the tab.  This is used to hit
+     * test a tab stamped by a TabStrip, after the tab is laid out.
+     */
+    Rectangle getNameBounds() {
+        return nameLabel.getBounds();
+    }
+    
+    /**
+     * Returns the bounds of the close button within the tab.
+     */
+    Rectangle getCloseButtonBounds() {
+        return closeButton.getBounds();
+    }
+    
+    /**
+     * Sets the rollover state of the close button, for a tab stamped by a
+     * TabStrip that does not receive mouse events.
+     */
+    void setCloseRollover(boolean rollover) {
+        closeButton.getModel().setRollover(rollover);
     }
     
     /**
      * Fires the select action for the tab. 
      */
-    private void select() {
+    void select() {
         ActionEvent evt = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "select");
         mainAction.actionPerformed(evt);
     }
@@ -104,7 +279,7 @@ public class Tab extends JPanel {
     /**
      * Fires the close action for the tab.
      */
-    private void close() {
+    void close() {
         ActionEvent evt = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "close");
         closeAction.actionPerformed(evt);
     }
@@ -118,8 +293,28 @@ public class Tab extends JPanel {
             setContentAreaFilled(false);
             setFont(getFont().deriveFont(Font.BOLD));
             setMargin(new Insets(3,3,3,3));
-            setIcon(new CloseIcon(Color.BLACK, 6));
-            setRolloverIcon(new CloseIcon(Color.RED, 6));
+            setIcon(CLOSE_ICON);
+            setRolloverIcon(CLOSE_ROLLOVER_ICON);
+            
+            // Clear cached tab image when rollover, pressed or focus state
+            // changes.
+            getModel().addChangeListener(new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    clearImageCache();
+                }
+            });
+            addFocusListener(new FocusAdapter() {
+                @Override
+                public void focusGained(FocusEvent e) {
+                    clearImageCache();
+                }
+                
+                @Override
+                public void focusLost(FocusEvent e) {
+                    clearImageCache();
+                }
+            });
             
             addMouseListener(new MouseAdapter() {
                 @Override
@@ -141,17 +336,29 @@ public class Tab extends JPanel {
     }
     
     /**
-     * Close icon.
+     * Close icon.  The icon is pre-rendered once for each combination of
+     * color, size and device scale into an image that is shared by all tabs,
+     * so painting the icon is a single image draw.
      */
     private static class CloseIcon implements Icon {
         private static final float SIZE_TO_THICKNESS = 6.0f;
         
+        private static final Map<String, BufferedImage> imageCache = 
+            new ConcurrentHashMap<String, BufferedImage>();
+        
         private final Color color;
         private final int size;
+        private final int padding;
+        
+        // Image for the most recently used scale.
+        private double lastScale;
+        private BufferedImage lastImage;
 
         public CloseIcon(Color color, int size) {
             this.color = color;
             this.size = size;
+            // Allow room for the line thickness outside the icon bounds.
+            this.padding = (int) Math.ceil(getThickness());
         }
 
         @Override
@@ -166,29 +373,78 @@ public class Tab extends JPanel {
 
         @Override
         public void paintIcon(Component c, Graphics g, int x, int y) {
+            // Get image for device scale.
+            AffineTransform transform = ((Graphics2D) g).getTransform();
+            double scale = Math.max(transform.getScaleX(), transform.getScaleY());
+            BufferedImage image = this.lastImage;
+            if (image == null || scale != this.lastScale) {
+                image = getImage(c, scale);
+                this.lastImage = image;
+                this.lastScale = scale;
+            }
+            
+            // Draw image at specified position.
+            int imageSize = this.size + 2 * this.padding;
+            g.drawImage(image, x - this.padding, y - this.padding, imageSize, imageSize, null);
+        }
+        
+        /**
+         * Returns the line thickness for the icon.
+         */
+        private float getThickness() {
+            return Math.max(this.size / SIZE_TO_THICKNESS, 1.0f);
+        }
+        
+        /**
+         * Returns the shared image for the icon at the specified scale, and
+         * renders the image if it does not exist.
+         */
+        private BufferedImage getImage(Component c, double scale) {
+            String key = this.color.getRGB() + ":" + this.size + ":" + scale;
+            BufferedImage image = imageCache.get(key);
+            if (image == null) {
+                image = renderImage(c, scale);
+                imageCache.put(key, image);
+            }
+            return image;
+        }
+        
+        /**
+         * Renders the icon into a new image at the specified scale.  The image
+         * is compatible with the component's graphics configuration if 
+         * available.
+         */
+        private BufferedImage renderImage(Component c, double scale) {
+            int imageSize = (int) Math.ceil((this.size + 2 * this.padding) * scale);
+            GraphicsConfiguration gc = (c != null) ? c.getGraphicsConfiguration() : null;
+            BufferedImage image = (gc != null) ?
+                gc.createCompatibleImage(imageSize, imageSize, Transparency.TRANSLUCENT) :
+                new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_ARGB);
+            
             // Create graphics.
-            Graphics2D g2d = (Graphics2D) g.create();
+            Graphics2D g2d = image.createGraphics();
             
             // Set graphics to use anti-aliasing for smoothness.
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON);
             
             // Set line color and thickness.
-            float thickness = Math.max(this.size / SIZE_TO_THICKNESS, 1.0f);
             g2d.setColor(this.color);
-            g2d.setStroke(new BasicStroke(thickness));
+            g2d.setStroke(new BasicStroke(getThickness()));
 
             // Create shape.
             Shape backSlash = new Line2D.Double(0, 0, this.size, this.size);
             Shape slash = new Line2D.Double(0, this.size, this.size, 0);
             
-            // Draw shape at specified position.
-            g2d.translate(x, y);
+            // Draw shape inside padding.
+            g2d.scale(scale, scale);
+            g2d.translate(this.padding, this.padding);
             g2d.draw(backSlash);
             g2d.draw(slash);
 
             // Dispose graphics.
             g2d.dispose();
+            return image;
         }
     }
 }
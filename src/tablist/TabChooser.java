@@ -0,0 +1,13 @@
+package tablist;
+
+/**
+ * Component that lets the user choose a tab entry, and notifies a listener
+ * with itself as the event source.
+ */
+public interface TabChooser {
+
+    /**
+     * Returns the entry that was last chosen, or null if no entry was chosen.
+     */
+    TabModel.Entry getChosenEntry();
+}
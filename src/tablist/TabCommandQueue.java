@@ -0,0 +1,113 @@
+package tablist;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Queue of commands for an AnimatedTabPanel, which may be posted from any
+ * thread.  Posting does not lock: commands are added to a lock-free queue,
+ * and a drain task is scheduled on the event dispatch thread only if one is
+ * not already pending.  The drain task applies all queued commands as a
+ * single batch, so they produce one model update and one transition.
+ *
+ * <p>Drains are at least one frame interval apart.  Commands posted sooner
+ * are held until the next frame.</p>
+ */
+class TabCommandQueue {
+    private static final int FRAME_INTERVAL = 20;
+    private static final int MAX_COMMANDS_PER_DRAIN = 4096;
+
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AnimatedTabPanel panel;
+    private final Runnable drainTask;
+    private final Runnable applyTask;
+
+    private Timer frameTimer;
+    private boolean drained;
+    private long lastDrain;
+
+    /**
+     * Constructs a TabCommandQueue that applies commands to the specified
+     * panel.
+     */
+    public TabCommandQueue(AnimatedTabPanel panel) {
+        this.panel = panel;
+        this.drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+        this.applyTask = new Runnable() {
+            @Override
+            public void run() {
+                Runnable command;
+                for (int i = 0; i < MAX_COMMANDS_PER_DRAIN && (command = commands.poll()) != null; i++) {
+                    command.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * Adds the specified command to the queue.  This may be called from any
+     * thread.  The command is run on the event dispatch thread within a
+     * batch.
+     */
+    public void post(Runnable command) {
+        commands.add(command);
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(drainTask);
+        }
+    }
+
+    /**
+     * Applies the queued commands as a single batch, or waits for the next
+     * frame if the previous drain was less than a frame interval ago.
+     */
+    private void drain() {
+        long now = System.nanoTime();
+        long waitMillis = (lastDrain + FRAME_INTERVAL * 1000000L - now) / 1000000L;
+        if (drained && waitMillis > 0) {
+            getFrameTimer().setInitialDelay((int) waitMillis);
+            getFrameTimer().restart();
+            return;
+        }
+        drained = true;
+        lastDrain = now;
+
+        // Clear the flag first, so that commands posted while draining
+        // schedule another drain.
+        drainScheduled.set(false);
+        try {
+            panel.batch(applyTask);
+        } finally {
+            if (!commands.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(drainTask);
+            }
+        }
+    }
+
+    /**
+     * Returns the timer used to delay a drain until the next frame.
+     */
+    private Timer getFrameTimer() {
+        if (frameTimer == null) {
+            frameTimer = new Timer(FRAME_INTERVAL, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    drain();
+                }
+            });
+            frameTimer.setRepeats(false);
+        }
+        return frameTimer;
+    }
+}
@@ -0,0 +1,232 @@
+package tablist;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for tab operations, layout and transitions.
+ * The events let stalls in the tab list be correlated with garbage
+ * collection and other work on the event dispatch thread.  They are enabled
+ * by the "tablist.jfc" recording template, and may be combined with the
+ * default template:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=settings=default,settings=tablist.jfc ...
+ * </pre>
+ *
+ * <p>Each event is created where it is emitted, and its fields are only set
+ * if the event is enabled, so a disabled event costs a single check.  Stack
+ * traces are disabled by default.</p>
+ */
+public final class TabEvents {
+    private static final String CATEGORY = "Tab List";
+
+    private TabEvents() {
+    }
+
+    /**
+     * Emits an event for a tab added, with the resulting number of tabs.
+     */
+    static void tabAdded(int tabCount) {
+        TabAdded event = new TabAdded();
+        if (event.isEnabled()) {
+            event.tabCount = tabCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits an event for a tab removed, with the resulting number of tabs.
+     */
+    static void tabRemoved(int tabCount) {
+        TabRemoved event = new TabRemoved();
+        if (event.isEnabled()) {
+            event.tabCount = tabCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits an event for a tab selected.  The index of the entry is only
+     * computed if the event is enabled.
+     */
+    static void tabSelected(TabModel model, TabModel.Entry entry) {
+        TabSelected event = new TabSelected();
+        if (event.isEnabled()) {
+            event.tabIndex = (entry != null) ? model.indexOf(entry) : -1;
+            event.tabCount = model.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits an event for effects assigned to the components of a
+     * transition.
+     */
+    static void effectsRegistered(int appearingCount, int disappearingCount) {
+        EffectsRegistered event = new EffectsRegistered();
+        if (event.isEnabled()) {
+            event.appearingCount = appearingCount;
+            event.disappearingCount = disappearingCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits an event for an effect created by an effect pool, because no
+     * free effect of its type was available.
+     */
+    static void effectCreated(String effectType) {
+        EffectCreated event = new EffectCreated();
+        if (event.isEnabled()) {
+            event.effectType = effectType;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits an event for a transition started or retargeted, where the
+     * specified time in nanoseconds was spent starting it.
+     */
+    static void transitionStart(String quality, int duration, boolean retargeted, long setupTime) {
+        TransitionStart event = new TransitionStart();
+        if (event.isEnabled()) {
+            event.quality = quality;
+            event.duration = duration;
+            event.retargeted = retargeted;
+            event.setupTime = setupTime;
+            event.commit();
+        }
+    }
+
+    /** Tab added to the panel. */
+    @Name("tablist.TabAdded")
+    @Label("Tab Added")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TabAdded extends Event {
+        @Label("Tab Count")
+        int tabCount;
+    }
+
+    /** Tab removed from the panel. */
+    @Name("tablist.TabRemoved")
+    @Label("Tab Removed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TabRemoved extends Event {
+        @Label("Tab Count")
+        int tabCount;
+    }
+
+    /** Tab selected in the panel. */
+    @Name("tablist.TabSelected")
+    @Label("Tab Selected")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TabSelected extends Event {
+        @Label("Tab Index")
+        @Description("Index of the selected tab, or -1 if none")
+        int tabIndex;
+
+        @Label("Tab Count")
+        int tabCount;
+    }
+
+    /** Layout of the visible tabs. */
+    @Name("tablist.LayoutTabs")
+    @Label("Layout Tabs")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LayoutTabs extends Event {
+        @Label("Visible Count")
+        int visibleCount;
+
+        @Label("Total Count")
+        int totalCount;
+
+        @Label("Animated")
+        @Description("Whether effects were assigned for a transition")
+        boolean animated;
+    }
+
+    /** Effects assigned to the components of a transition. */
+    @Name("tablist.EffectsRegistered")
+    @Label("Effects Registered")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class EffectsRegistered extends Event {
+        @Label("Appearing Count")
+        int appearingCount;
+
+        @Label("Disappearing Count")
+        int disappearingCount;
+    }
+
+    /** Effect created by an effect pool. */
+    @Name("tablist.EffectCreated")
+    @Label("Effect Created")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class EffectCreated extends Event {
+        @Label("Effect Type")
+        String effectType;
+    }
+
+    /** Transition started or retargeted by a tab change. */
+    @Name("tablist.TransitionStart")
+    @Label("Transition Start")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TransitionStart extends Event {
+        @Label("Quality")
+        String quality;
+
+        @Label("Duration")
+        @Timespan(Timespan.MILLISECONDS)
+        int duration;
+
+        @Label("Retargeted")
+        @Description("Whether a running transition was retargeted")
+        boolean retargeted;
+
+        @Label("Setup Time")
+        @Description("Time spent starting the transition")
+        @Timespan(Timespan.NANOSECONDS)
+        long setupTime;
+    }
+
+    /** Transition from its start to its end, committed when it ends. */
+    @Name("tablist.TransitionEnd")
+    @Label("Transition End")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TransitionEnd extends Event {
+        @Label("Frame Count")
+        int frameCount;
+
+        @Label("Retarget Count")
+        int retargetCount;
+    }
+
+    /** Frame sent to the animator by a FrameTimingSource. */
+    @Name("tablist.Frame")
+    @Label("Transition Frame")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class Frame extends Event {
+        @Label("Interval")
+        @Description("Time since the previous frame of the animation")
+        @Timespan(Timespan.NANOSECONDS)
+        long interval;
+
+        @Label("Resolution")
+        @Timespan(Timespan.MILLISECONDS)
+        int resolution;
+    }
+}
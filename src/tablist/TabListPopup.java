@@ -0,0 +1,174 @@
+package tablist;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.ScrollPaneConstants;
+
+/**
+ * Popup menu that lists all tabs in a TabModel.  The list is virtualized:
+ * rows are read from the model and painted only when they are visible, and
+ * all rows have a fixed size, so the popup opens in constant time regardless
+ * of the number of tabs.
+ *
+ * <p>When a tab is chosen, the popup closes and notifies its action listener
+ * with itself as the event source.  The chosen entry is obtained by calling
+ * <code>getChosenEntry()</code>.</p>
+ */
+public class TabListPopup extends JPopupMenu implements TabChooser {
+    private static final int MAX_VISIBLE_ROWS = 20;
+    private static final int ROW_WIDTH = 205;
+    private static final String CHOOSE_ACTION = "chooseTab";
+
+    private final TabModel model;
+    private final ActionListener chooseListener;
+    private final EntryListModel listModel;
+    private final JList<TabModel.Entry> list;
+
+    private TabModel.Entry chosenEntry;
+
+    /**
+     * Constructs a TabListPopup for the specified model.  The specified
+     * listener is notified when a tab is chosen.
+     */
+    public TabListPopup(TabModel model, ActionListener chooseListener) {
+        this.model = model;
+        this.chooseListener = chooseListener;
+
+        // Use fixed row sizes so that the list never measures all rows.
+        listModel = new EntryListModel();
+        list = new JList<TabModel.Entry>(listModel);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setPrototypeCellValue(new TabModel.Entry(-1, "Tab"));
+        list.setFixedCellWidth(ROW_WIDTH);
+
+        // Choose tab on mouse click or Enter key, and track rollover.
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    chooseIndex(index);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0 && index != list.getSelectedIndex()) {
+                    list.setSelectedIndex(index);
+                }
+            }
+        };
+        list.addMouseListener(mouseHandler);
+        list.addMouseMotionListener(mouseHandler);
+
+        list.getInputMap(JComponent.WHEN_FOCUSED).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), CHOOSE_ACTION);
+        list.getActionMap().put(CHOOSE_ACTION, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = list.getSelectedIndex();
+                if (index >= 0) {
+                    chooseIndex(index);
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        add(scrollPane);
+    }
+
+    @Override
+    public TabModel.Entry getChosenEntry() {
+        return chosenEntry;
+    }
+
+    /**
+     * Updates the list from the model, and displays the popup.  The
+     * selected entry is highlighted and scrolled into view.
+     */
+    @Override
+    public void show(Component invoker, int x, int y) {
+        updateList();
+        super.show(invoker, x, y);
+        list.requestFocusInWindow();
+    }
+
+    /**
+     * Updates the list to reflect the current contents of the model.  This
+     * takes O(log n) time to locate the selected entry.
+     */
+    void updateList() {
+        // Clear selection first so that the selection model does not shift
+        // selected indices when the size changes.
+        chosenEntry = null;
+        list.clearSelection();
+        listModel.update();
+        list.setVisibleRowCount(Math.max(Math.min(model.size(), MAX_VISIBLE_ROWS), 1));
+
+        TabModel.Entry selectedEntry = model.getSelected();
+        int selIdx = (selectedEntry != null) ? model.indexOf(selectedEntry) : -1;
+        if (selIdx >= 0) {
+            list.setSelectedIndex(selIdx);
+            list.ensureIndexIsVisible(selIdx);
+        }
+
+        // Recalculate popup size for the new row count.
+        pack();
+    }
+
+    /**
+     * Chooses the entry at the specified index, closes the popup, and
+     * notifies the listener.
+     */
+    private void chooseIndex(int index) {
+        chosenEntry = model.get(index);
+        setVisible(false);
+        chooseListener.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, CHOOSE_ACTION));
+    }
+
+    /**
+     * List model that reads entries directly from the tab model.
+     */
+    private class EntryListModel extends AbstractListModel<TabModel.Entry> {
+        private int size;
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public TabModel.Entry getElementAt(int index) {
+            return model.get(index);
+        }
+
+        /**
+         * Notifies list listeners that the model contents have changed.
+         */
+        public void update() {
+            int oldSize = size;
+            size = model.size();
+            if (size > 0 || oldSize > 0) {
+                fireContentsChanged(this, 0, Math.max(size, oldSize) - 1);
+            }
+        }
+    }
+}
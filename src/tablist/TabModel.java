@@ -0,0 +1,323 @@
+package tablist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model containing the ordered list of tabs.  Each tab is represented by a
+ * lightweight <code>Entry</code> record; <code>Tab</code> components are only
+ * bound to entries that are visible in the container.
+ *
+ * <p>The model also keeps a history of the entries in most recently used
+ * order.  The history is a doubly linked list threaded through the entries
+ * themselves, so an entry is moved to the front, removed, or stepped to its
+ * neighbour in O(1) time without any lookup.</p>
+ */
+public class TabModel {
+
+    private final IndexedList<Entry> entryList = new IndexedList<Entry>();
+
+    private long nextId;
+    private Entry selectedEntry;
+    private Entry mostRecentEntry;
+    private Entry leastRecentEntry;
+
+    /**
+     * Constructs an empty TabModel.
+     */
+    public TabModel() {
+    }
+
+    /**
+     * Inserts a new entry with the specified title at the specified index,
+     * and returns the new entry.
+     */
+    public Entry add(int index, String title) {
+        Entry entry = new Entry(nextId++, title);
+        entryList.add(index, entry);
+        return entry;
+    }
+
+    /**
+     * Inserts the specified number of entries at the specified index, and
+     * returns the new entries.  The titles are obtained from the specified
+     * loader when they are first used.  If the widths are not null, they are
+     * the display widths of the entries.  This takes O(count + log n) time.
+     */
+    List<Entry> addAll(int index, int count, TitleLoader loader, int[] widths) {
+        List<Entry> entries = new ArrayList<Entry>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(nextId++, loader, i));
+        }
+        entryList.addAll(index, entries, widths);
+        return entries;
+    }
+    
+    /**
+     * Removes the specified entry from the model.  Returns true if the entry
+     * was removed.
+     */
+    public boolean remove(Entry entry) {
+        if (entry == selectedEntry) {
+            setSelected(null);
+        }
+        if (!entryList.remove(entry)) {
+            return false;
+        }
+        unlinkRecent(entry);
+        return true;
+    }
+
+    /**
+     * Removes all entries from the model.
+     */
+    public void clear() {
+        setSelected(null);
+        entryList.clear();
+        while (mostRecentEntry != null) {
+            unlinkRecent(mostRecentEntry);
+        }
+    }
+
+    /**
+     * Returns the entry at the specified index.
+     */
+    public Entry get(int index) {
+        return entryList.get(index);
+    }
+
+    /**
+     * Returns the index of the specified entry, or -1 if the entry is not in
+     * the model.  This takes O(log n) time.
+     */
+    public int indexOf(Entry entry) {
+        return entryList.indexOf(entry);
+    }
+
+    /**
+     * Sets the title of the specified entry.
+     */
+    public void setTitle(Entry entry, String title) {
+        entry.title = title;
+        entry.titleLoader = null;
+    }
+    
+    /**
+     * Sets the display width of the specified entry.  This takes O(log n)
+     * time.
+     */
+    public void setWidth(Entry entry, int width) {
+        entryList.setWeight(entry, width);
+    }
+    
+    /**
+     * Returns the display width of the specified entry.
+     */
+    public int getWidth(Entry entry) {
+        return entryList.getWeight(entry);
+    }
+    
+    /**
+     * Returns the total display width of the first <code>count</code> 
+     * entries.  This takes O(log n) time.
+     */
+    public long getTotalWidth(int count) {
+        return entryList.getWeightSum(count);
+    }
+    
+    /**
+     * Returns the number of leading entries whose total display width is no
+     * more than the specified width.  This takes O(log n) time.
+     */
+    public int countWithinWidth(long width) {
+        return entryList.countWithinWeight(width);
+    }
+    
+    /**
+     * Returns the number of entries in the model.
+     */
+    public int size() {
+        return entryList.size();
+    }
+
+    /**
+     * Returns an unmodifiable list of all entries.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entryList);
+    }
+
+    /**
+     * Returns the selected entry, or null if no entry is selected.
+     */
+    public Entry getSelected() {
+        return selectedEntry;
+    }
+
+    /**
+     * Selects the specified entry.  A null value clears the selection.
+     */
+    public void setSelected(Entry entry) {
+        if (selectedEntry != null) {
+            selectedEntry.selected = false;
+        }
+
+        selectedEntry = entry;
+
+        if (selectedEntry != null) {
+            selectedEntry.selected = true;
+        }
+    }
+
+    /**
+     * Moves the specified entry to the front of the history, as the most
+     * recently used entry.  This takes O(1) time.
+     */
+    public void touch(Entry entry) {
+        if (entry == mostRecentEntry) {
+            return;
+        }
+        unlinkRecent(entry);
+        entry.lessRecent = mostRecentEntry;
+        if (mostRecentEntry != null) {
+            mostRecentEntry.moreRecent = entry;
+        } else {
+            leastRecentEntry = entry;
+        }
+        mostRecentEntry = entry;
+        entry.inHistory = true;
+    }
+
+    /**
+     * Returns the most recently used entry, or null if the history is empty.
+     */
+    public Entry getMostRecent() {
+        return mostRecentEntry;
+    }
+
+    /**
+     * Returns the least recently used entry, or null if the history is 
+     * empty.
+     */
+    public Entry getLeastRecent() {
+        return leastRecentEntry;
+    }
+
+    /**
+     * Returns the entry used before the specified entry, or null if there is
+     * none.  Entries that were never used are not in the history.
+     */
+    public Entry getLessRecent(Entry entry) {
+        return entry.lessRecent;
+    }
+
+    /**
+     * Returns the entry used after the specified entry, or null if there is
+     * none.
+     */
+    public Entry getMoreRecent(Entry entry) {
+        return entry.moreRecent;
+    }
+
+    /**
+     * Removes the specified entry from the history, if present.  This takes
+     * O(1) time.
+     */
+    private void unlinkRecent(Entry entry) {
+        if (!entry.inHistory) {
+            return;
+        }
+        if (entry.moreRecent != null) {
+            entry.moreRecent.lessRecent = entry.lessRecent;
+        } else {
+            mostRecentEntry = entry.lessRecent;
+        }
+        if (entry.lessRecent != null) {
+            entry.lessRecent.moreRecent = entry.moreRecent;
+        } else {
+            leastRecentEntry = entry.moreRecent;
+        }
+        entry.moreRecent = null;
+        entry.lessRecent = null;
+        entry.inHistory = false;
+    }
+
+    /**
+     * Source of entry titles that are loaded when they are first used.
+     */
+    interface TitleLoader {
+        
+        /**
+         * Returns the title at the specified index.
+         */
+        String loadTitle(int index);
+    }
+
+    /**
+     * Lightweight record describing a single tab.
+     */
+    public static class Entry {
+        private final long id;
+        private String title;
+        private boolean selected;
+        private TitleLoader titleLoader;
+        private int titleIndex;
+        private Entry moreRecent;
+        private Entry lessRecent;
+        private boolean inHistory;
+
+        /** Tab component bound to this entry, or null if not visible. */
+        Tab tab;
+
+        Entry(long id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+
+        Entry(long id, TitleLoader titleLoader, int titleIndex) {
+            this.id = id;
+            this.titleLoader = titleLoader;
+            this.titleIndex = titleIndex;
+        }
+
+        /**
+         * Returns the unique identifier for the entry.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Returns the tab title.
+         */
+        public String getTitle() {
+            if (titleLoader != null) {
+                title = titleLoader.loadTitle(titleIndex);
+                titleLoader = null;
+            }
+            return title;
+        }
+
+        /**
+         * Returns an indicator that determines whether the entry is selected.
+         */
+        public boolean isSelected() {
+            return selected;
+        }
+
+        /**
+         * Returns a hash code derived from the unique identifier.  Entries
+         * are still compared by identity.
+         */
+        @Override
+        public int hashCode() {
+            return (int) (id ^ (id >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return getTitle();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package tablist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental fuzzy search index over tab titles.  A query matches a title
+ * if the query characters appear in the title in order, ignoring case.
+ * Matches are ranked by a score that favors consecutive characters and
+ * characters at the start of words.
+ *
+ * <p>Each indexed entry is assigned a slot, and the lowercase titles of all
+ * slots are packed into a single character buffer.  The index keeps a
+ * bitset of slots for each character, so the first character of a query
+ * only examines titles that contain it.  The matches for each query prefix
+ * are kept along with the position reached in each title, so when a
+ * character is typed the previous matches are refined by continuing from
+ * that position instead of rescanning all titles.  Deleting a character
+ * reuses the matches of the shorter prefix.  Adding, removing or renaming
+ * an entry discards the saved matches.</p>
+ */
+public class TabSearchIndex {
+    private static final int CONSECUTIVE_BONUS = 5;
+    private static final int WORD_START_BONUS = 3;
+    private static final int MAX_GAP_PENALTY = 3;
+
+    /**
+     * Multiplier for match scores.  Scores start at minus the title length
+     * (up to this value) so that ties are broken in favor of shorter titles
+     * with a single comparison.
+     */
+    private static final int SCORE_UNIT = 1 << 10;
+
+    private final Map<TabModel.Entry, Integer> slotMap = new HashMap<TabModel.Entry, Integer>();
+    private final Map<Character, long[]> postingMap = new HashMap<Character, long[]>();
+
+    // Slot contents.  Free slots are linked through titleStarts.
+    private TabModel.Entry[] slotEntries = new TabModel.Entry[16];
+    private int[] titleStarts = new int[16];
+    private int[] titleEnds = new int[16];
+    private int slotCount;
+    private int freeSlot = -1;
+
+    // Packed lowercase titles, including space left by removed titles.
+    private char[] text = new char[256];
+    private int textLength;
+    private int garbageLength;
+
+    // Matches for each prefix of the last query.  Match sets beyond the
+    // query length are kept to reuse their arrays.
+    private final List<MatchSet> matchLevels = new ArrayList<MatchSet>();
+    private final StringBuilder lastQuery = new StringBuilder();
+
+    /**
+     * Constructs an empty TabSearchIndex.
+     */
+    public TabSearchIndex() {
+    }
+
+    /**
+     * Adds the specified entry to the index.
+     */
+    public void add(TabModel.Entry entry) {
+        int slot = allocateSlot();
+        slotEntries[slot] = entry;
+        slotMap.put(entry, slot);
+        setTitle(slot, entry.getTitle());
+        clearMatches();
+    }
+
+    /**
+     * Removes the specified entry from the index.
+     */
+    public void remove(TabModel.Entry entry) {
+        Integer slot = slotMap.remove(entry);
+        if (slot != null) {
+            clearTitle(slot);
+            slotEntries[slot] = null;
+            titleStarts[slot] = freeSlot;
+            freeSlot = slot;
+            clearMatches();
+        }
+    }
+
+    /**
+     * Updates the index after the title of the specified entry has changed.
+     */
+    public void update(TabModel.Entry entry) {
+        Integer slot = slotMap.get(entry);
+        if (slot != null) {
+            clearTitle(slot);
+            setTitle(slot, entry.getTitle());
+            clearMatches();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     */
+    public int size() {
+        return slotMap.size();
+    }
+
+    /**
+     * Returns up to <code>maxResults</code> entries matching the specified
+     * query, in order of decreasing score.  An empty query returns no
+     * results.
+     */
+    public List<TabModel.Entry> search(String query, int maxResults) {
+        String lowerQuery = query.toLowerCase();
+
+        // Keep matches for the prefix shared with the last query.
+        int common = 0;
+        int limit = Math.min(lowerQuery.length(), lastQuery.length());
+        while (common < limit && lowerQuery.charAt(common) == lastQuery.charAt(common)) {
+            common++;
+        }
+        lastQuery.setLength(common);
+
+        // Refine matches for each additional character.
+        for (int i = common; i < lowerQuery.length(); i++) {
+            char ch = lowerQuery.charAt(i);
+            if (i == 0) {
+                matchFirst(ch);
+            } else {
+                refine(matchLevels.get(i - 1), ch, getMatchLevel(i));
+            }
+            lastQuery.append(ch);
+        }
+
+        if (lastQuery.length() == 0) {
+            return new ArrayList<TabModel.Entry>();
+        }
+        return matchLevels.get(lastQuery.length() - 1).getTopEntries(maxResults);
+    }
+
+    /**
+     * Discards the matches saved for the last query.
+     */
+    private void clearMatches() {
+        matchLevels.clear();
+        lastQuery.setLength(0);
+    }
+
+    /**
+     * Returns the match set for the specified query length, creating it if
+     * needed.
+     */
+    private MatchSet getMatchLevel(int level) {
+        if (level == matchLevels.size()) {
+            matchLevels.add(new MatchSet());
+        }
+        return matchLevels.get(level);
+    }
+
+    /**
+     * Returns an unused slot, growing the slot arrays if needed.
+     */
+    private int allocateSlot() {
+        if (freeSlot >= 0) {
+            int slot = freeSlot;
+            freeSlot = titleStarts[slot];
+            titleStarts[slot] = titleEnds[slot] = 0;
+            return slot;
+        }
+
+        if (slotCount == slotEntries.length) {
+            int capacity = slotCount * 2;
+            slotEntries = Arrays.copyOf(slotEntries, capacity);
+            titleStarts = Arrays.copyOf(titleStarts, capacity);
+            titleEnds = Arrays.copyOf(titleEnds, capacity);
+            for (Map.Entry<Character, long[]> posting : postingMap.entrySet()) {
+                posting.setValue(Arrays.copyOf(posting.getValue(), (capacity + 63) >> 6));
+            }
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Appends the lowercase title to the text buffer, and adds the slot to
+     * the posting set of each character in the title.
+     */
+    private void setTitle(int slot, String title) {
+        String lowerTitle = (title != null) ? title.toLowerCase() : "";
+        if (textLength + lowerTitle.length() > text.length) {
+            compactText(lowerTitle.length());
+        }
+
+        titleStarts[slot] = textLength;
+        lowerTitle.getChars(0, lowerTitle.length(), text, textLength);
+        textLength += lowerTitle.length();
+        titleEnds[slot] = textLength;
+
+        for (int i = titleStarts[slot]; i < textLength; i++) {
+            long[] bits = postingMap.get(text[i]);
+            if (bits == null) {
+                bits = new long[(slotEntries.length + 63) >> 6];
+                postingMap.put(text[i], bits);
+            }
+            bits[slot >> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * Removes the slot from the posting sets of its title, and releases its
+     * space in the text buffer.
+     */
+    private void clearTitle(int slot) {
+        for (int i = titleStarts[slot]; i < titleEnds[slot]; i++) {
+            postingMap.get(text[i])[slot >> 6] &= ~(1L << slot);
+        }
+        garbageLength += titleEnds[slot] - titleStarts[slot];
+        titleEnds[slot] = titleStarts[slot];
+    }
+
+    /**
+     * Removes space left by removed titles from the text buffer, and grows
+     * the buffer if needed to add the specified length.  Titles are copied
+     * in slot order so that matching reads the buffer sequentially.
+     */
+    private void compactText(int addLength) {
+        int liveLength = textLength - garbageLength;
+        int capacity = text.length;
+        if (liveLength + addLength > capacity / 2) {
+            capacity = Math.max(capacity * 2, (liveLength + addLength) * 2);
+        }
+        char[] newText = new char[capacity];
+
+        int length = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotEntries[slot] != null) {
+                int start = titleStarts[slot];
+                int titleLength = titleEnds[slot] - start;
+                System.arraycopy(text, start, newText, length, titleLength);
+                titleStarts[slot] = length;
+                length += titleLength;
+                titleEnds[slot] = length;
+            }
+        }
+
+        text = newText;
+        textLength = length;
+        garbageLength = 0;
+    }
+
+    /**
+     * Finds the matches for a query consisting of the specified character.
+     */
+    private void matchFirst(char ch) {
+        MatchSet matches = getMatchLevel(0);
+        long[] bits = postingMap.get(ch);
+        if (bits == null) {
+            matches.reset(0);
+            return;
+        }
+
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+
+        matches.reset(count);
+        int[] slots = matches.slots;
+        int[] positions = matches.positions;
+        int[] scores = matches.scores;
+        int size = 0;
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                int slot = (i << 6) + Long.numberOfTrailingZeros(word);
+                int start = titleStarts[slot];
+                int end = titleEnds[slot];
+                int pos = findChar(text, start - 1, end, ch);
+                slots[size] = slot;
+                positions[size] = pos;
+                scores[size] = scoreMatch(text, start, start - 1, pos, -Math.min(end - start, SCORE_UNIT - 1));
+                size++;
+                word &= word - 1;
+            }
+        }
+        matches.size = size;
+    }
+
+    /**
+     * Finds the subset of the previous matches that also match the specified
+     * next character.
+     */
+    private void refine(MatchSet previous, char ch, MatchSet matches) {
+        // Copy fields to locals for the inner loop.
+        char[] text = this.text;
+        int[] titleStarts = this.titleStarts;
+        int[] titleEnds = this.titleEnds;
+        int[] prevSlots = previous.slots;
+        int[] prevPositions = previous.positions;
+        int[] prevScores = previous.scores;
+        int prevSize = previous.size;
+
+        matches.reset(prevSize);
+        int[] slots = matches.slots;
+        int[] positions = matches.positions;
+        int[] scores = matches.scores;
+        int size = 0;
+        for (int i = 0; i < prevSize; i++) {
+            int slot = prevSlots[i];
+            int position = prevPositions[i];
+            int pos = findChar(text, position, titleEnds[slot], ch);
+            if (pos >= 0) {
+                slots[size] = slot;
+                positions[size] = pos;
+                scores[size] = scoreMatch(text, titleStarts[slot], position, pos, prevScores[i]);
+                size++;
+            }
+        }
+        matches.size = size;
+    }
+
+    /**
+     * Returns the position of the specified character in the text after the
+     * specified position and before the end, or -1 if it is not found.
+     */
+    private static int findChar(char[] text, int position, int end, char ch) {
+        for (int pos = position + 1; pos < end; pos++) {
+            if (text[pos] == ch) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the score after matching a character at the specified
+     * position, where the previous character matched at the specified
+     * previous position.  Positions are relative to the text buffer, and
+     * the title begins at the specified start.
+     */
+    private static int scoreMatch(char[] text, int start, int prevPos, int pos, int score) {
+        int points = 1;
+        if (prevPos >= start && pos == prevPos + 1) {
+            points += CONSECUTIVE_BONUS;
+        } else {
+            points -= Math.min(pos - prevPos - 1, MAX_GAP_PENALTY);
+        }
+        if (pos == start || !Character.isLetterOrDigit(text[pos - 1])) {
+            points += WORD_START_BONUS;
+        }
+        return score + points * SCORE_UNIT;
+    }
+
+    /**
+     * Slots matching a query, with the text position of the last matched
+     * character and the score for each slot.
+     */
+    private class MatchSet {
+        private int[] slots = new int[0];
+        private int[] positions = new int[0];
+        private int[] scores = new int[0];
+        private int size;
+
+        /**
+         * Removes all matches, and ensures room for the specified number of
+         * matches.
+         */
+        public void reset(int capacity) {
+            size = 0;
+            if (slots.length < capacity) {
+                slots = new int[capacity];
+                positions = new int[capacity];
+                scores = new int[capacity];
+            }
+        }
+
+        /**
+         * Returns the entries with the highest scores, where ties are
+         * broken in favor of shorter titles.  This uses a bounded heap, so
+         * it takes O(n log k) time.
+         */
+        public List<TabModel.Entry> getTopEntries(int maxResults) {
+            int count = Math.min(maxResults, size);
+            int[] heap = new int[count];
+            int heapSize = 0;
+            for (; heapSize < count; heapSize++) {
+                heap[heapSize] = heapSize;
+                siftUp(heap, heapSize);
+            }
+
+            // Replace the lowest-ranked match whenever a better one is found.
+            int[] scores = this.scores;
+            int minScore = (count > 0) ? scores[heap[0]] : Integer.MAX_VALUE;
+            for (int i = count; i < size; i++) {
+                if (scores[i] > minScore) {
+                    heap[0] = i;
+                    siftDown(heap, heapSize);
+                    minScore = scores[heap[0]];
+                }
+            }
+
+            // Remove lowest-ranked matches from the heap into the list end.
+            TabModel.Entry[] results = new TabModel.Entry[heapSize];
+            for (int n = heapSize - 1; n >= 0; n--) {
+                results[n] = slotEntries[slots[heap[0]]];
+                heap[0] = heap[n];
+                siftDown(heap, n);
+            }
+            return new ArrayList<TabModel.Entry>(Arrays.asList(results));
+        }
+
+        /**
+         * Returns true if match i ranks higher than match j.
+         */
+        private boolean isBetter(int i, int j) {
+            return scores[i] > scores[j];
+        }
+
+        /**
+         * Moves the heap element at the specified index up to its place in
+         * the min-heap.
+         */
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!isBetter(heap[parent], heap[index])) {
+                    break;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        /**
+         * Moves the root of the min-heap of the specified size down to its
+         * place.
+         */
+        private void siftDown(int[] heap, int heapSize) {
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && isBetter(heap[child], heap[child + 1])) {
+                    child++;
+                }
+                if (!isBetter(heap[index], heap[child])) {
+                    break;
+                }
+                swap(heap, index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int[] heap, int i, int j) {
+            int temp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = temp;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package tablist;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves and restores the tabs of an AnimatedTabPanel using a compact binary
+ * session file.  The file contains the titles and display widths of the tabs
+ * in order, the selected tab, and the first visible tab.
+ *
+ * <p>Each save writes the whole session in a single pass through a small
+ * buffer, so the titles are never encoded into one large array.  The
+ * session is written to a temporary file that replaces the session file
+ * when complete.  Sessions are restored by reading the file into a single
+ * buffer, which is not mapped so that the file may be replaced while the
+ * titles are still in use.  Only the table of widths is read up front; each
+ * title is decoded from the buffer when it is first used, which is normally
+ * when its tab becomes visible.</p>
+ *
+ * <p>The file layout is a fixed header, followed by the titles as
+ * length-prefixed UTF-8 strings, followed by a table with the title offset
+ * and width of each tab.  All values are big-endian.</p>
+ */
+public class TabSession {
+    private static final int MAGIC = 0x54414253; // "TABS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Saves the tabs in the specified panel to the specified file.
+     */
+    public static void save(AnimatedTabPanel panel, File file) throws IOException {
+        TabModel model = panel.getModel();
+        int tabCount = model.size();
+        int[] offsets = new int[tabCount];
+        int[] widths = new int[tabCount];
+
+        Path path = file.toPath();
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.position(HEADER_SIZE);
+
+            // Write titles, and record their offsets and widths.
+            long offset = HEADER_SIZE;
+            int index = 0;
+            for (TabModel.Entry entry : model.getEntries()) {
+                String title = entry.getTitle();
+                byte[] bytes = (title != null) ? title.getBytes(UTF_8) : new byte[0];
+                offsets[index] = (int) (offset - HEADER_SIZE);
+                widths[index] = model.getWidth(entry);
+                index++;
+
+                ensureRemaining(channel, buffer, 4);
+                buffer.putInt(bytes.length);
+                writeBytes(channel, buffer, bytes);
+                offset += 4 + bytes.length;
+            }
+
+            // Write table.
+            long tableOffset = offset;
+            for (int i = 0; i < tabCount; i++) {
+                ensureRemaining(channel, buffer, RECORD_SIZE);
+                buffer.putInt(offsets[i]);
+                buffer.putInt(widths[i]);
+            }
+            flush(channel, buffer);
+
+            // Write header.
+            TabModel.Entry selectedEntry = model.getSelected();
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(tabCount);
+            buffer.putInt((selectedEntry != null) ? model.indexOf(selectedEntry) : -1);
+            buffer.putInt(panel.getVisibleStart());
+            buffer.putInt(panel.getWidthSignature());
+            buffer.putLong(tableOffset);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+        } finally {
+            channel.close();
+        }
+
+        // Replace session file.
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Replaces the tabs in the specified panel with the tabs saved in the
+     * specified file.  This must be called on the event dispatch thread, and
+     * titles are loaded from the file on that thread.
+     */
+    public static void restore(AnimatedTabPanel panel, File file) throws IOException {
+        ByteBuffer buffer;
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            // Read the file into the heap rather than mapping it.  A mapped
+            // file cannot be replaced on some platforms, such as Windows,
+            // until the mapping is garbage collected.
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Session file too large: " + file);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+        } finally {
+            channel.close();
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a session file: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported session version " + buffer.getInt(4) + ": " + file);
+        }
+
+        int tabCount = buffer.getInt(8);
+        int selectedIdx = buffer.getInt(12);
+        int startIdx = buffer.getInt(16);
+        int widthSignature = buffer.getInt(20);
+        long tableOffset = buffer.getLong(24);
+        if (tabCount < 0 || tableOffset < HEADER_SIZE ||
+                tableOffset + (long) tabCount * RECORD_SIZE > buffer.limit()) {
+            throw new IOException("Corrupt session file: " + file);
+        }
+
+        // Read widths, and check that each title lies before the table and
+        // each width is valid.
+        int[] widths = new int[tabCount];
+        for (int i = 0; i < tabCount; i++) {
+            int record = (int) tableOffset + i * RECORD_SIZE;
+            long titleOffset = HEADER_SIZE + (long) buffer.getInt(record);
+            if (titleOffset < HEADER_SIZE || titleOffset + 4 > tableOffset) {
+                throw new IOException("Corrupt session file: " + file);
+            }
+            int length = buffer.getInt((int) titleOffset);
+            if (length < 0 || titleOffset + 4 + length > tableOffset) {
+                throw new IOException("Corrupt session file: " + file);
+            }
+            widths[i] = buffer.getInt(record + 4);
+            if (widths[i] < 0) {
+                throw new IOException("Corrupt session file: " + file);
+            }
+        }
+
+        panel.restoreEntries(tabCount, new BufferTitleLoader(buffer, (int) tableOffset),
+                widths, widthSignature, selectedIdx, startIdx);
+    }
+
+    /**
+     * Writes the buffer contents to the channel if the buffer has less than
+     * the specified number of bytes remaining.
+     */
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the specified bytes through the buffer.
+     */
+    private static void writeBytes(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the buffer contents to the channel, and clears the buffer.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Title loader that decodes titles from the contents of a session file.
+     * The title bounds are checked when the session is restored.
+     */
+    private static class BufferTitleLoader implements TabModel.TitleLoader {
+        private final ByteBuffer buffer;
+        private final int tableOffset;
+
+        public BufferTitleLoader(ByteBuffer buffer, int tableOffset) {
+            this.buffer = buffer;
+            this.tableOffset = tableOffset;
+        }
+
+        @Override
+        public String loadTitle(int index) {
+            int offset = HEADER_SIZE + buffer.getInt(tableOffset + index * RECORD_SIZE);
+            int length = buffer.getInt(offset);
+            return new String(buffer.array(), offset + 4, length, UTF_8);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package tablist;
+
+import java.awt.AlphaComposite;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+
+/**
+ * Component that displays a row of tabs by stamping a single renderer tab,
+ * in the same way that JTable paints cells using a cell renderer.  The tabs
+ * are not components, so adding or removing visible tabs does not add,
+ * remove or validate any components.
+ *
+ * <p>The strip keeps the left edge of each tab in a sorted array, which is
+ * searched to find the tab at a point in O(log n) time.  A single mouse
+ * listener selects or closes the tab under the mouse by binding the renderer
+ * to the tab entry, and firing its select or close action.  The tabs are
+ * laid out like the tab components in AnimatedTabPanel, with each tab
+ * occupying its entry width including the space between tabs.</p>
+ *
+ * <p>As with tab components, the rendered image of each visible tab is
+ * cached, and drawn instead of stamping the renderer until the tab title,
+ * selection, size or close button state changes.  Images of tabs that are
+ * no longer visible are reused for tabs that become visible.</p>
+ */
+class TabStrip extends JComponent {
+    private static final int NONE = 0;
+    private static final int NAME = 1;
+    private static final int CLOSE_BUTTON = 2;
+
+    private final TabModel model;
+    private final Tab renderer;
+    private final Insets tabInsets;
+    private final CellRendererPane rendererPane = new CellRendererPane();
+    private final Rectangle tabBounds = new Rectangle();
+    private final Deque<TabImage> spareImages = new ArrayDeque<TabImage>();
+
+    private Map<TabModel.Entry, TabImage> tabImages = new HashMap<TabModel.Entry, TabImage>();
+
+    private TabModel.Entry[] entries = new TabModel.Entry[0];
+    private int[] tabX = new int[1];
+    private int count;
+    private int rolloverIndex = -1;
+    private boolean closeRollover;
+
+    /**
+     * Constructs a TabStrip that displays entries of the specified model
+     * using the specified renderer tab, with the specified space around each
+     * tab.
+     */
+    public TabStrip(TabModel model, Tab renderer, Insets tabInsets) {
+        this.model = model;
+        this.renderer = renderer;
+        this.tabInsets = tabInsets;
+        renderer.setCacheEnabled(false);
+        add(rendererPane);
+        setOpaque(false);
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = getTabIndex(e.getX());
+                int part = (index >= 0) ? getPartAt(index, e.getX(), e.getY()) : NONE;
+                if (part == NONE) {
+                    return;
+                }
+
+                // Fire the action with the renderer bound to the entry as
+                // the source, as a tab component does.
+                renderer.bind(entries[index]);
+                try {
+                    if (part == CLOSE_BUTTON) {
+                        renderer.close();
+                    } else {
+                        renderer.select();
+                    }
+                } finally {
+                    renderer.bind(null);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                updateRollover(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setRollover(-1, false);
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+    }
+
+    /**
+     * Sets the entries to display, in order.  The tab positions are
+     * computed from the entry widths in the model.
+     */
+    public void setEntries(List<TabModel.Entry> visibleEntries) {
+        count = visibleEntries.size();
+        if (entries.length < count) {
+            entries = new TabModel.Entry[count];
+            tabX = new int[count + 1];
+        }
+        Arrays.fill(entries, count, entries.length, null);
+        Map<TabModel.Entry, TabImage> oldImages = tabImages;
+        tabImages = new HashMap<TabModel.Entry, TabImage>();
+        int x = 0;
+        for (int i = 0; i < count; i++) {
+            TabModel.Entry entry = visibleEntries.get(i);
+            entries[i] = entry;
+            tabX[i] = x;
+            x += model.getWidth(entry);
+            TabImage tabImage = oldImages.remove(entry);
+            if (tabImage != null) {
+                tabImages.put(entry, tabImage);
+            }
+        }
+        tabX[count] = x;
+
+        // Keep images of hidden tabs for reuse, up to one per visible tab.
+        for (TabImage tabImage : oldImages.values()) {
+            if (spareImages.size() < count) {
+                spareImages.add(tabImage);
+            }
+        }
+
+        rolloverIndex = -1;
+        closeRollover = false;
+        invalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the number of tabs displayed.
+     */
+    public int getTabCount() {
+        return count;
+    }
+
+    /**
+     * Returns the entry displayed at the specified index.
+     */
+    public TabModel.Entry getEntry(int index) {
+        return entries[index];
+    }
+
+    /**
+     * Returns the index of the tab whose space contains the specified x
+     * coordinate, or -1 if none.  This takes O(log n) time.
+     */
+    public int getTabIndex(int x) {
+        if (count == 0 || x < 0 || x >= tabX[count]) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(tabX, 0, count + 1, x);
+        return (index >= 0) ? index : -index - 2;
+    }
+
+    /**
+     * Returns the bounds of the tab at the specified index.  The returned
+     * rectangle is reused by later calls.
+     */
+    public Rectangle getTabBounds(int index) {
+        tabBounds.setBounds(tabX[index] + tabInsets.left, tabInsets.top,
+                tabX[index + 1] - tabX[index] - tabInsets.left - tabInsets.right,
+                getHeight() - tabInsets.top - tabInsets.bottom);
+        return tabBounds;
+    }
+
+    /**
+     * Returns the preferred size, which fits all tabs at the preferred
+     * height of the renderer.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        return new Dimension(tabX[count],
+                renderer.getPreferredSize().height + tabInsets.top + tabInsets.bottom);
+    }
+
+    /**
+     * Paints the tabs that intersect the clip bounds, using the cached
+     * image of each tab.  The images are rendered at the scale of the
+     * graphics context so that they remain sharp on high resolution
+     * displays.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        int first = 0;
+        int last = count - 1;
+        if (clip != null) {
+            first = Math.max(getTabIndex(Math.max(clip.x, 0)), 0);
+            int lastIndex = getTabIndex(clip.x + clip.width - 1);
+            last = (lastIndex >= 0) ? lastIndex : count - 1;
+        }
+
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        double scale = Math.max(transform.getScaleX(), transform.getScaleY());
+        for (int i = first; i <= last; i++) {
+            Rectangle r = getTabBounds(i);
+            if (r.width > 0 && r.height > 0) {
+                int x = r.x;
+                int y = r.y;
+                int width = r.width;
+                int height = r.height;
+                BufferedImage image = getTabImage(i, width, height, scale);
+                if (image.getWidth() == width && image.getHeight() == height) {
+                    g.drawImage(image, x, y, null);
+                } else {
+                    g.drawImage(image, x, y, width, height, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the image of the tab at the specified index, with the
+     * specified size and scale.  The tab is stamped into the image if the
+     * cached image is missing or out of date.
+     */
+    private BufferedImage getTabImage(int index, int width, int height, double scale) {
+        TabModel.Entry entry = entries[index];
+        String title = entry.getTitle();
+        boolean rollover = (index == rolloverIndex && closeRollover);
+        int imageWidth = (int) Math.ceil(width * scale);
+        int imageHeight = (int) Math.ceil(height * scale);
+        TabImage tabImage = tabImages.get(entry);
+        if (tabImage != null && tabImage.matches(title, entry.isSelected(), rollover, scale,
+                imageWidth, imageHeight)) {
+            return tabImage.image;
+        }
+
+        // Reuse the image of this tab or a hidden tab if it has the same
+        // size.  Use an opaque image when possible so that it can be copied
+        // without blending.
+        if (tabImage == null) {
+            tabImage = spareImages.poll();
+            if (tabImage == null) {
+                tabImage = new TabImage();
+            }
+            tabImages.put(entry, tabImage);
+        }
+        if (tabImage.image == null || tabImage.image.getWidth() != imageWidth ||
+                tabImage.image.getHeight() != imageHeight) {
+            tabImage.image = new BufferedImage(imageWidth, imageHeight,
+                    renderer.isOpaque() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2d = tabImage.image.createGraphics();
+        if (!renderer.isOpaque()) {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, imageWidth, imageHeight);
+            g2d.setComposite(AlphaComposite.SrcOver);
+        }
+        g2d.scale(scale, scale);
+        layoutRenderer(index);
+        renderer.setCloseRollover(rollover);
+        rendererPane.paintComponent(g2d, renderer, this, 0, 0, width, height, false);
+        renderer.setCloseRollover(false);
+        renderer.bind(null);
+        g2d.dispose();
+
+        tabImage.title = title;
+        tabImage.selected = entry.isSelected();
+        tabImage.closeRollover = rollover;
+        tabImage.scale = scale;
+        return tabImage.image;
+    }
+
+    /**
+     * Binds the renderer to the tab at the specified index, and lays it out
+     * at the tab bounds.  The renderer is laid out directly, since it is not
+     * displayed and would not be validated.  Returns the tab bounds.
+     */
+    private Rectangle layoutRenderer(int index) {
+        Rectangle r = getTabBounds(index);
+        renderer.bind(entries[index]);
+        renderer.setBounds(r);
+        renderer.doLayout();
+        return r;
+    }
+
+    /**
+     * Returns the part of the tab at the specified index that contains the
+     * specified point: the name, the close button, or none.
+     */
+    private int getPartAt(int index, int x, int y) {
+        Rectangle r = layoutRenderer(index);
+        int part = NONE;
+        if (renderer.getCloseButtonBounds().contains(x - r.x, y - r.y)) {
+            part = CLOSE_BUTTON;
+        } else if (renderer.getNameBounds().contains(x - r.x, y - r.y)) {
+            part = NAME;
+        }
+        renderer.bind(null);
+        return part;
+    }
+
+    /**
+     * Updates the rollover state of the close buttons, and the cursor, for
+     * the mouse at the specified point.
+     */
+    private void updateRollover(int x, int y) {
+        int index = getTabIndex(x);
+        boolean close = (index >= 0) && (getPartAt(index, x, y) == CLOSE_BUTTON);
+        setRollover(close ? index : -1, close);
+    }
+
+    /**
+     * Sets the tab whose close button has the mouse over it, and repaints
+     * the tabs that change.
+     */
+    private void setRollover(int index, boolean close) {
+        if (index == rolloverIndex && close == closeRollover) {
+            return;
+        }
+        if (rolloverIndex >= 0 && rolloverIndex < count) {
+            repaint(getTabBounds(rolloverIndex));
+        }
+        rolloverIndex = index;
+        closeRollover = close;
+        if (index >= 0) {
+            repaint(getTabBounds(index));
+        }
+        setCursor(close ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    /**
+     * Cached image of a stamped tab, and the tab state it was rendered with.
+     */
+    private static class TabImage {
+        private BufferedImage image;
+        private String title;
+        private boolean selected;
+        private boolean closeRollover;
+        private double scale;
+
+        /**
+         * Returns true if the image was rendered with the specified state
+         * and has the specified size.
+         */
+        public boolean matches(String title, boolean selected, boolean closeRollover, double scale,
+                int imageWidth, int imageHeight) {
+            return image != null && image.getWidth() == imageWidth && image.getHeight() == imageHeight &&
+                selected == this.selected && closeRollover == this.closeRollover &&
+                scale == this.scale && (title == null ? this.title == null : title.equals(this.title));
+        }
+    }
+}
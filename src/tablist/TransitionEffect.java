@@ -0,0 +1,157 @@
+package tablist;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+
+/**
+ * Effect that animates one component during a ContainerTransition.  The
+ * transition sets the start and end bounds of the component, and the image
+ * of the component, before calling <code>init()</code>.  Subclasses vary the
+ * current bounds and opacity by adding timing targets to the transition, and
+ * the component image is painted scaled to the current bounds.
+ *
+ * <p>This takes the place of the Effect class of the Animated Transitions
+ * library.  An effect may target its parent effect, so that several effects
+ * combined in a CompositeEffect vary the state of a single image.</p>
+ */
+public abstract class TransitionEffect {
+    private final Rectangle start = new Rectangle();
+    private final Rectangle end = new Rectangle();
+    private final Rectangle bounds = new Rectangle();
+    private final Rectangle source = new Rectangle();
+    private float opacity = 1.0f;
+    private Image image;
+
+    /**
+     * Returns the bounds of the component at the start of the transition.
+     */
+    public Rectangle getStart() {
+        return start;
+    }
+
+    /**
+     * Sets the bounds of the component at the start of the transition.
+     */
+    public void setStart(Rectangle start) {
+        this.start.setBounds(start);
+    }
+
+    /**
+     * Returns the bounds of the component at the end of the transition.
+     */
+    public Rectangle getEnd() {
+        return end;
+    }
+
+    /**
+     * Sets the bounds of the component at the end of the transition.
+     */
+    public void setEnd(Rectangle end) {
+        this.end.setBounds(end);
+    }
+
+    /**
+     * Returns the current bounds at which the image is painted.  The
+     * returned rectangle must not be modified.
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public void setX(int x) {
+        bounds.x = x;
+    }
+
+    public void setY(int y) {
+        bounds.y = y;
+    }
+
+    public void setWidth(int width) {
+        bounds.width = width;
+    }
+
+    public void setHeight(int height) {
+        bounds.height = height;
+    }
+
+    /**
+     * Returns the current opacity, from 0 to 1.
+     */
+    public float getOpacity() {
+        return opacity;
+    }
+
+    /**
+     * Sets the current opacity, from 0 to 1.
+     */
+    public void setOpacity(float opacity) {
+        this.opacity = Math.min(Math.max(opacity, 0.0f), 1.0f);
+    }
+
+    /**
+     * Sets the image that contains the component, and the region of the
+     * image occupied by the component.  The image is not copied.
+     */
+    public void setImage(Image image, Rectangle source) {
+        this.image = image;
+        this.source.setBounds(source);
+    }
+
+    /**
+     * Returns the image that contains the component, or null if not set.
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the region of the image occupied by the component.  The
+     * returned rectangle must not be modified.
+     */
+    public Rectangle getSource() {
+        return source;
+    }
+
+    /**
+     * Initializes the effect for the next transition.  The current bounds
+     * are set to the start bounds at full opacity.  Subclasses should add
+     * their timing targets to the transition, and then call this method.
+     * If the parent effect is not null, the timing targets should vary the
+     * parent instead of this effect.
+     */
+    public void init(ContainerTransition transition, TransitionEffect parentEffect) {
+        bounds.setBounds(start);
+        opacity = 1.0f;
+    }
+
+    /**
+     * Removes the timing targets added by <code>init()</code>.  The image is
+     * released.
+     */
+    public void cleanup(ContainerTransition transition) {
+        image = null;
+    }
+
+    /**
+     * Paints the component image at the current bounds and opacity.
+     */
+    public void paint(Graphics2D g) {
+        if (image == null || bounds.width <= 0 || bounds.height <= 0 || opacity <= 0.0f) {
+            return;
+        }
+
+        Composite oldComposite = null;
+        if (opacity < 1.0f) {
+            oldComposite = g.getComposite();
+            g.setComposite(AlphaComposite.SrcOver.derive(opacity));
+        }
+        g.drawImage(image, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height,
+                source.x, source.y, source.x + source.width, source.y + source.height, null);
+        if (oldComposite != null) {
+            g.setComposite(oldComposite);
+        }
+    }
+}
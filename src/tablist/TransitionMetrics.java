@@ -0,0 +1,341 @@
+package tablist;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics for the transitions of a single AnimatedTabPanel.  Values are
+ * recorded on the event dispatch thread using atomic variables without
+ * locking, and may be read from any thread, either through a snapshot or
+ * through JMX after calling <code>registerMBean()</code>.
+ */
+public class TransitionMetrics implements TransitionMetricsMBean {
+    private static final long[] INTERVAL_BUCKETS = {8, 12, 17, 25, 33, 50, 100};
+
+    /** Frames starting later than this multiple of the resolution are late. */
+    private static final double LATE_FACTOR = 1.5;
+
+    private final AtomicLong transitionCount = new AtomicLong();
+    private final AtomicLong startTime = new AtomicLong();
+    private final AtomicLong setupTime = new AtomicLong();
+    private final AtomicLong maxSetupTime = new AtomicLong();
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong dispatchTime = new AtomicLong();
+    private final AtomicLong maxDispatchTime = new AtomicLong();
+    private final AtomicLong paintCount = new AtomicLong();
+    private final AtomicLong paintTime = new AtomicLong();
+    private final AtomicLong maxPaintTime = new AtomicLong();
+    private final AtomicLong lateFrameCount = new AtomicLong();
+    private final AtomicLong droppedFrameCount = new AtomicLong();
+    private final AtomicLongArray intervalHistogram = new AtomicLongArray(INTERVAL_BUCKETS.length + 1);
+
+    private final AtomicLong lastFrameStart = new AtomicLong();
+
+    private ObjectName objectName;
+
+    /**
+     * Constructs a TransitionMetrics with all values set to zero.
+     */
+    public TransitionMetrics() {
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server using the
+     * specified name.
+     */
+    public void registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName newName = new ObjectName("tablist:type=AnimatedTabPanel,name=" + ObjectName.quote(name));
+        server.registerMBean(this, newName);
+        objectName = newName;
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server.
+     */
+    public void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    /**
+     * Records the start of a transition, where the specified time in
+     * nanoseconds was spent starting it.
+     */
+    public void recordTransitionStart(long nanos) {
+        transitionCount.incrementAndGet();
+        startTime.addAndGet(nanos);
+        lastFrameStart.set(0);
+    }
+
+    /**
+     * Records the time in nanoseconds spent setting up the next screen.
+     */
+    public void recordSetup(long nanos) {
+        setupTime.addAndGet(nanos);
+        updateMax(maxSetupTime, nanos);
+    }
+
+    /**
+     * Records an animation frame whose timing event was dispatched between
+     * the specified times in nanoseconds.  The resolution is the expected
+     * frame interval in milliseconds.
+     */
+    public void recordFrame(long start, long end, int resolution) {
+        long nanos = end - start;
+        frameCount.incrementAndGet();
+        dispatchTime.addAndGet(nanos);
+        updateMax(maxDispatchTime, nanos);
+
+        // Record interval since the previous frame of the same transition.
+        long last = lastFrameStart.getAndSet(start);
+        if (last != 0) {
+            long intervalMillis = (start - last) / 1000000L;
+            intervalHistogram.incrementAndGet(bucketFor(intervalMillis));
+            if (resolution > 0 && intervalMillis > resolution * LATE_FACTOR) {
+                lateFrameCount.incrementAndGet();
+                droppedFrameCount.addAndGet(intervalMillis / resolution - 1);
+            }
+        }
+    }
+
+    /**
+     * Records the time in nanoseconds spent painting a transition frame.
+     */
+    public void recordPaint(long nanos) {
+        paintCount.incrementAndGet();
+        paintTime.addAndGet(nanos);
+        updateMax(maxPaintTime, nanos);
+    }
+
+    /**
+     * Returns a snapshot of the current values.
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(this);
+    }
+
+    @Override
+    public long getTransitionCount() {
+        return transitionCount.get();
+    }
+
+    @Override
+    public long getTotalSetupTime() {
+        return setupTime.get() / 1000L;
+    }
+
+    @Override
+    public long getMaxSetupTime() {
+        return maxSetupTime.get() / 1000L;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+
+    @Override
+    public long getAverageDispatchTime() {
+        long count = frameCount.get();
+        return (count > 0) ? dispatchTime.get() / count / 1000L : 0;
+    }
+
+    @Override
+    public long getMaxDispatchTime() {
+        return maxDispatchTime.get() / 1000L;
+    }
+
+    @Override
+    public long getPaintCount() {
+        return paintCount.get();
+    }
+
+    @Override
+    public long getAveragePaintTime() {
+        long count = paintCount.get();
+        return (count > 0) ? paintTime.get() / count / 1000L : 0;
+    }
+
+    @Override
+    public long getMaxPaintTime() {
+        return maxPaintTime.get() / 1000L;
+    }
+
+    @Override
+    public long getLateFrameCount() {
+        return lateFrameCount.get();
+    }
+
+    @Override
+    public long getDroppedFrameCount() {
+        return droppedFrameCount.get();
+    }
+
+    @Override
+    public long getTotalEdtTime() {
+        return (startTime.get() + dispatchTime.get() + paintTime.get()) / 1000L;
+    }
+
+    @Override
+    public long[] getFrameIntervalBuckets() {
+        return INTERVAL_BUCKETS.clone();
+    }
+
+    @Override
+    public long[] getFrameIntervalHistogram() {
+        long[] counts = new long[intervalHistogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = intervalHistogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        transitionCount.set(0);
+        startTime.set(0);
+        setupTime.set(0);
+        maxSetupTime.set(0);
+        frameCount.set(0);
+        dispatchTime.set(0);
+        maxDispatchTime.set(0);
+        paintCount.set(0);
+        paintTime.set(0);
+        maxPaintTime.set(0);
+        lateFrameCount.set(0);
+        droppedFrameCount.set(0);
+        for (int i = 0; i < intervalHistogram.length(); i++) {
+            intervalHistogram.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the histogram bucket for the specified interval.
+     */
+    private static int bucketFor(long intervalMillis) {
+        for (int i = 0; i < INTERVAL_BUCKETS.length; i++) {
+            if (intervalMillis < INTERVAL_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return INTERVAL_BUCKETS.length;
+    }
+
+    /**
+     * Sets the specified maximum to the specified value if it is larger.
+     */
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Point-in-time copy of transition metrics.  Times are in microseconds.
+     */
+    public static class Snapshot {
+        private final long transitionCount;
+        private final long totalSetupTime;
+        private final long maxSetupTime;
+        private final long frameCount;
+        private final long averageDispatchTime;
+        private final long maxDispatchTime;
+        private final long paintCount;
+        private final long averagePaintTime;
+        private final long maxPaintTime;
+        private final long lateFrameCount;
+        private final long droppedFrameCount;
+        private final long totalEdtTime;
+        private final long[] frameIntervalHistogram;
+
+        Snapshot(TransitionMetrics metrics) {
+            transitionCount = metrics.getTransitionCount();
+            totalSetupTime = metrics.getTotalSetupTime();
+            maxSetupTime = metrics.getMaxSetupTime();
+            frameCount = metrics.getFrameCount();
+            averageDispatchTime = metrics.getAverageDispatchTime();
+            maxDispatchTime = metrics.getMaxDispatchTime();
+            paintCount = metrics.getPaintCount();
+            averagePaintTime = metrics.getAveragePaintTime();
+            maxPaintTime = metrics.getMaxPaintTime();
+            lateFrameCount = metrics.getLateFrameCount();
+            droppedFrameCount = metrics.getDroppedFrameCount();
+            totalEdtTime = metrics.getTotalEdtTime();
+            frameIntervalHistogram = metrics.getFrameIntervalHistogram();
+        }
+
+        public long getTransitionCount() {
+            return transitionCount;
+        }
+
+        public long getTotalSetupTime() {
+            return totalSetupTime;
+        }
+
+        public long getMaxSetupTime() {
+            return maxSetupTime;
+        }
+
+        public long getFrameCount() {
+            return frameCount;
+        }
+
+        public long getAverageDispatchTime() {
+            return averageDispatchTime;
+        }
+
+        public long getMaxDispatchTime() {
+            return maxDispatchTime;
+        }
+
+        public long getPaintCount() {
+            return paintCount;
+        }
+
+        public long getAveragePaintTime() {
+            return averagePaintTime;
+        }
+
+        public long getMaxPaintTime() {
+            return maxPaintTime;
+        }
+
+        public long getLateFrameCount() {
+            return lateFrameCount;
+        }
+
+        public long getDroppedFrameCount() {
+            return droppedFrameCount;
+        }
+
+        public long getTotalEdtTime() {
+            return totalEdtTime;
+        }
+
+        /**
+         * Returns the frame interval counts, using the buckets returned by
+         * <code>getFrameIntervalBuckets()</code>.
+         */
+        public long[] getFrameIntervalHistogram() {
+            return frameIntervalHistogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "transitions=" + transitionCount + ", setup=" + totalSetupTime +
+                "us, frames=" + frameCount + ", avgDispatch=" + averageDispatchTime +
+                "us, maxDispatch=" + maxDispatchTime + "us, paints=" + paintCount +
+                ", avgPaint=" + averagePaintTime + "us, maxPaint=" + maxPaintTime + "us, late=" + lateFrameCount +
+                ", dropped=" + droppedFrameCount + ", edt=" + totalEdtTime + "us";
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tablist;
+
+/**
+ * Management interface for transition metrics recorded by an
+ * AnimatedTabPanel.  Times are reported in microseconds.
+ */
+public interface TransitionMetricsMBean {
+
+    /**
+     * Returns the number of transitions started.
+     */
+    long getTransitionCount();
+
+    /**
+     * Returns the total time spent setting up the next screen layout.
+     */
+    long getTotalSetupTime();
+
+    /**
+     * Returns the maximum time spent setting up a single screen layout.
+     */
+    long getMaxSetupTime();
+
+    /**
+     * Returns the number of animation frames processed.
+     */
+    long getFrameCount();
+
+    /**
+     * Returns the average time spent dispatching the timing event of an
+     * animation frame.  Painting happens later, and is reported by
+     * <code>getAveragePaintTime()</code>.
+     */
+    long getAverageDispatchTime();
+
+    /**
+     * Returns the maximum time spent dispatching the timing event of an
+     * animation frame.
+     */
+    long getMaxDispatchTime();
+
+    /**
+     * Returns the number of transition frames painted.
+     */
+    long getPaintCount();
+
+    /**
+     * Returns the average time spent painting a transition frame.
+     */
+    long getAveragePaintTime();
+
+    /**
+     * Returns the maximum time spent painting a transition frame.
+     */
+    long getMaxPaintTime();
+
+    /**
+     * Returns the number of frames that started later than expected.
+     */
+    long getLateFrameCount();
+
+    /**
+     * Returns the estimated number of frames skipped between late frames,
+     * counting only whole frame intervals.
+     */
+    long getDroppedFrameCount();
+
+    /**
+     * Returns the total time consumed on the event dispatch thread by
+     * transitions, including starting transitions, dispatching frames and
+     * painting frames.
+     */
+    long getTotalEdtTime();
+
+    /**
+     * Returns the upper bounds in milliseconds of the frame interval
+     * histogram buckets.  The last bucket has no upper bound.
+     */
+    long[] getFrameIntervalBuckets();
+
+    /**
+     * Returns the number of frame intervals in each histogram bucket.
+     */
+    long[] getFrameIntervalHistogram();
+
+    /**
+     * Resets all metrics to zero.
+     */
+    void reset();
+}
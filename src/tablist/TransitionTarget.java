@@ -0,0 +1,14 @@
+package tablist;
+
+/**
+ * Target of a ContainerTransition.  The target changes the contents of the
+ * container from the current screen to the next one.
+ */
+public interface TransitionTarget {
+
+    /**
+     * Sets up the next screen of the container.  This is called when the
+     * transition starts, after the current screen has been captured.
+     */
+    void setupNextScreen();
+}
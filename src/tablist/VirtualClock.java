@@ -0,0 +1,90 @@
+package tablist;
+
+import org.jdesktop.animation.timing.TimingTarget;
+
+/**
+ * Clock that drives transitions in virtual time, for offline rendering and
+ * repeatable performance tests.  Time advances only when
+ * <code>advance()</code> is called, so a transition produces the same
+ * frames on every run regardless of the speed of the machine.
+ *
+ * <p>The Animator reads the system time itself when it computes each
+ * fraction, so it cannot be driven by a timing source in virtual time.
+ * Instead, the clock sends the begin, timing and end events to the
+ * transition as the Animator would, with a linear fraction of the elapsed
+ * virtual time.  All methods must be called on the event dispatch
+ * thread.</p>
+ */
+public class VirtualClock {
+    private TimingTarget target;
+    private long time;
+    private long startTime;
+    private long duration;
+
+    /**
+     * Returns the current virtual time in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns true if a transition is running.
+     */
+    public boolean isRunning() {
+        return target != null;
+    }
+
+    /**
+     * Starts driving the specified target for the specified duration in
+     * milliseconds, beginning at the current virtual time.  A running
+     * target is ended first.
+     */
+    public void start(TimingTarget target, int duration) {
+        stop();
+        this.target = target;
+        this.startTime = time;
+        this.duration = Math.max(duration, 1) * 1000000L;
+        target.begin();
+    }
+
+    /**
+     * Restarts the timing of the running target for the specified duration
+     * in milliseconds, beginning at the current virtual time.  The target is
+     * not ended or begun again, as when a transition is retargeted.
+     */
+    public void restart(int duration) {
+        this.startTime = time;
+        this.duration = Math.max(duration, 1) * 1000000L;
+    }
+
+    /**
+     * Ends the running target, if any.
+     */
+    public void stop() {
+        TimingTarget runningTarget = target;
+        if (runningTarget != null) {
+            target = null;
+            runningTarget.end();
+        }
+    }
+
+    /**
+     * Advances the virtual time by the specified number of milliseconds.
+     * The running target receives a timing event for the new time, and is
+     * ended once its duration has elapsed.
+     */
+    public void advance(long millis) {
+        time += millis * 1000000L;
+        if (target == null) {
+            return;
+        }
+
+        long elapsed = time - startTime;
+        float fraction = (elapsed >= duration) ? 1.0f : (float) elapsed / duration;
+        target.timingEvent(fraction);
+        if (fraction >= 1.0f) {
+            stop();
+        }
+    }
+}